@@ -0,0 +1,349 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Set of {@link Indexable} elements represented as a dense bit vector,
+ * where the i-th bit is set iff the element with index i is in the set.
+ * Bulk operations between two bit sets are performed word by word.
+ * <p>
+ * Copies share the underlying words until one of them is modified
+ * (copy-on-write), thus copying a set that is never changed afterwards
+ * costs no more than allocating the set object itself.
+ * <p>
+ * The bit vector itself only records indexes. To recover elements from
+ * indexes (e.g., for iteration), the set relies on a decoder, which is
+ * obtained from the first element added to the set, so that sets can be
+ * created without knowing the universe of their elements in advance.
+ *
+ * @param <E> type of elements, must implement {@link Indexable}
+ */
+final class IndexBitSet<E> extends AbstractSet<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+    private static final long[] EMPTY_WORDS = {};
+
+    /**
+     * Given an element, returns the function that maps indexes to
+     * the elements of the same universe.
+     */
+    private final Function<? super E, IntFunction<E>> decoderOf;
+
+    /**
+     * Maps indexes to elements. It is null until the first element is
+     * added, and it is shared by all copies of this set.
+     */
+    private IntFunction<E> decoder;
+
+    private long[] words;
+
+    /**
+     * Whether {@link #words} may be shared with other sets.
+     */
+    private boolean shared;
+
+    private int size;
+
+    IndexBitSet(Function<? super E, IntFunction<E>> decoderOf) {
+        this.decoderOf = decoderOf;
+        this.words = EMPTY_WORDS;
+    }
+
+    private IndexBitSet(IndexBitSet<E> other) {
+        this.decoderOf = other.decoderOf;
+        this.decoder = other.decoder;
+        this.words = other.words;
+        this.size = other.size;
+        this.shared = true;
+        other.shared = true;
+    }
+
+    /**
+     * @return a copy of this set which shares the underlying words
+     * with this set until any of them is modified.
+     */
+    IndexBitSet<E> copy() {
+        return new IndexBitSet<>(this);
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private static int indexOf(Object o) {
+        return ((Indexable) o).getIndex();
+    }
+
+    /**
+     * Makes {@link #words} exclusively owned by this set and large enough
+     * to hold the word of the given index.
+     */
+    private void prepareWrite(int wordIndex) {
+        if (wordIndex >= words.length) {
+            words = Arrays.copyOf(words,
+                    Math.max(wordIndex + 1, words.length * 2));
+            shared = false;
+        } else if (shared) {
+            words = words.clone();
+            shared = false;
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Indexable)) {
+            return false;
+        }
+        int index = indexOf(o);
+        int wi = wordIndex(index);
+        return wi < words.length && (words[wi] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexOf(e);
+        int wi = wordIndex(index);
+        long mask = 1L << index;
+        if (wi < words.length && (words[wi] & mask) != 0) {
+            return false;
+        }
+        if (decoder == null) {
+            decoder = decoderOf.apply(e);
+        }
+        prepareWrite(wi);
+        words[wi] |= mask;
+        ++size;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        int index = indexOf(o);
+        int wi = wordIndex(index);
+        prepareWrite(wi);
+        words[wi] &= ~(1L << index);
+        --size;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c instanceof IndexBitSet<?> other) {
+            return union(other);
+        }
+        return super.addAll(c);
+    }
+
+    private boolean union(IndexBitSet<?> other) {
+        long[] otherWords = other.words;
+        // find the first word that would change, so that shared words
+        // are not copied if this set already contains the other set
+        int i = 0;
+        int len = otherWords.length;
+        while (i < len &&
+                (otherWords[i] & ~(i < words.length ? words[i] : 0L)) == 0) {
+            ++i;
+        }
+        if (i == len) {
+            return false;
+        }
+        if (decoder == null) {
+            @SuppressWarnings("unchecked")
+            IntFunction<E> otherDecoder = (IntFunction<E>) other.decoder;
+            decoder = otherDecoder;
+        }
+        int end = lastNonZero(otherWords) + 1;
+        prepareWrite(end - 1);
+        for (; i < end; ++i) {
+            long old = words[i];
+            long merged = old | otherWords[i];
+            if (merged != old) {
+                words[i] = merged;
+                size += Long.bitCount(merged) - Long.bitCount(old);
+            }
+        }
+        return true;
+    }
+
+    private static int lastNonZero(long[] words) {
+        int i = words.length - 1;
+        while (i > 0 && words[i] == 0) {
+            --i;
+        }
+        return i;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof IndexBitSet<?> other) {
+            return intersect(other);
+        }
+        return super.retainAll(c);
+    }
+
+    private boolean intersect(IndexBitSet<?> other) {
+        long[] otherWords = other.words;
+        int i = 0;
+        while (i < words.length &&
+                (words[i] & ~(i < otherWords.length ? otherWords[i] : 0L)) == 0) {
+            ++i;
+        }
+        if (i == words.length) {
+            return false;
+        }
+        prepareWrite(i);
+        for (; i < words.length; ++i) {
+            long old = words[i];
+            long kept = i < otherWords.length ? old & otherWords[i] : 0L;
+            if (kept != old) {
+                words[i] = kept;
+                size -= Long.bitCount(old) - Long.bitCount(kept);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        if (shared) {
+            words = new long[words.length];
+            shared = false;
+        } else {
+            Arrays.fill(words, 0L);
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return decoder.apply(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                int wi = wordIndex(last);
+                prepareWrite(wi);
+                words[wi] &= ~(1L << last);
+                --size;
+                last = -1;
+            }
+        };
+    }
+
+    private int nextSetBit(int fromIndex) {
+        int wi = wordIndex(fromIndex);
+        if (wi >= words.length) {
+            return -1;
+        }
+        long word = words[wi] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return wi * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+            if (++wi == words.length) {
+                return -1;
+            }
+            word = words[wi];
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof IndexBitSet<?> other) {
+            if (size != other.size) {
+                return false;
+            }
+            if (words == other.words) {
+                return true;
+            }
+            int common = Math.min(words.length, other.words.length);
+            for (int i = 0; i < common; ++i) {
+                if (words[i] != other.words[i]) {
+                    return false;
+                }
+            }
+            // sizes are equal, so the remaining words must all be zero
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // hash code must follow the contract of Set.hashCode()
+        return super.hashCode();
+    }
+}
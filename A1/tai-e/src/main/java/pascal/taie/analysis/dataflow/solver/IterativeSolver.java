@@ -39,6 +39,19 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        boolean changed;
+        do {
+            changed = false;
+            for (Node node : cfg) {
+                if (cfg.isExit(node)) {
+                    continue;
+                }
+                Fact out = result.getOutFact(node);
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    analysis.meetInto(result.getInFact(succ), out);
+                }
+                changed |= analysis.transferNode(node, result.getInFact(node), out);
+            }
+        } while (changed);
     }
 }
@@ -48,6 +48,22 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
         return solver.solve(cfg);
     }
 
+    /**
+     * @return the number of node transfers performed by this analysis
+     * on all methods analyzed so far.
+     */
+    public long getTransferCount() {
+        return solver.getTransferCount();
+    }
+
+    /**
+     * @return the number of node transfers performed by this analysis
+     * on the method last analyzed by the current thread.
+     */
+    public int getLastTransferCount() {
+        return solver.getLastTransferCount();
+    }
+
     /**
      * By default, a data-flow analysis does not have edge transfer, i.e.,
      * does not need to perform transfer for any edges.
@@ -45,8 +45,15 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to use {@link ArrayCPFact} (instead of the map-based
+     * {@link CPFact}) as the data-flow facts.
+     */
+    private final boolean arrayFact;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        arrayFact = getOptions().getBooleanOrDefault("array-fact", false);
     }
 
     @Override
@@ -56,33 +63,59 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return null;
+        IR ir = cfg.getIR();
+        CPFact fact = arrayFact ? new ArrayCPFact(ir) : new CPFact();
+        for (Var param : ir.getParams()) {
+            if (canHoldInt(param)) {
+                fact.update(param, Value.getNAC());
+            }
+        }
+        return fact;
     }
 
     @Override
     public CPFact newInitialFact() {
-        // TODO - finish me
-        return null;
+        return arrayFact ? new ArrayCPFact() : new CPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        // TODO - finish me
+        if (fact instanceof ArrayCPFact packedFact &&
+                target instanceof ArrayCPFact packedTarget) {
+            // meet packed values directly, without creating Value objects
+            packedTarget.meetFrom(packedFact);
+            return;
+        }
+        fact.forEach((var, value) ->
+                target.update(var, meetValue(value, target.get(var))));
     }
 
     /**
      * Meets two Values.
      */
     public Value meetValue(Value v1, Value v2) {
-        // TODO - finish me
-        return null;
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef()) {
+            return v1;
+        } else if (v1.getConstant() == v2.getConstant()) {
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
     }
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var lhs && canHoldInt(lhs)) {
+            CPFact newOut = in.copy();
+            newOut.update(lhs, evaluate(def.getRValue(), in));
+            return out.copyFrom(newOut);
+        }
+        return out.copyFrom(in);
     }
 
     /**
@@ -111,7 +144,71 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
-        return null;
+        if (exp instanceof IntLiteral literal) {
+            return Value.makeConstant(literal.getValue());
+        } else if (exp instanceof Var var) {
+            return canHoldInt(var) ? in.get(var) : Value.getNAC();
+        } else if (exp instanceof BinaryExp binary) {
+            return evaluate(binary, in.get(binary.getOperand1()),
+                    in.get(binary.getOperand2()));
+        }
+        // other expressions (e.g., method calls and field loads)
+        // are conservatively treated as NAC
+        return Value.getNAC();
+    }
+
+    /**
+     * Evaluates given binary expression with the values of its operands.
+     */
+    private static Value evaluate(BinaryExp exp, Value v1, Value v2) {
+        BinaryExp.Op op = exp.getOperator();
+        if (v2.isConstant() && v2.getConstant() == 0 &&
+                (op == ArithmeticExp.Op.DIV || op == ArithmeticExp.Op.REM)) {
+            // division by zero never produces a value
+            return Value.getUndef();
+        }
+        if (v1.isConstant() && v2.isConstant()) {
+            return Value.makeConstant(
+                    compute(op, v1.getConstant(), v2.getConstant()));
+        } else if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else {
+            return Value.getUndef();
+        }
+    }
+
+    private static int compute(BinaryExp.Op op, int i1, int i2) {
+        if (op instanceof ArithmeticExp.Op arithmeticOp) {
+            return switch (arithmeticOp) {
+                case ADD -> i1 + i2;
+                case SUB -> i1 - i2;
+                case MUL -> i1 * i2;
+                case DIV -> i1 / i2;
+                case REM -> i1 % i2;
+            };
+        } else if (op instanceof ConditionExp.Op conditionOp) {
+            boolean result = switch (conditionOp) {
+                case EQ -> i1 == i2;
+                case NE -> i1 != i2;
+                case LT -> i1 < i2;
+                case GT -> i1 > i2;
+                case LE -> i1 <= i2;
+                case GE -> i1 >= i2;
+            };
+            return result ? 1 : 0;
+        } else if (op instanceof ShiftExp.Op shiftOp) {
+            return switch (shiftOp) {
+                case SHL -> i1 << i2;
+                case SHR -> i1 >> i2;
+                case USHR -> i1 >>> i2;
+            };
+        } else if (op instanceof BitwiseExp.Op bitwiseOp) {
+            return switch (bitwiseOp) {
+                case OR -> i1 | i2;
+                case AND -> i1 & i2;
+                case XOR -> i1 ^ i2;
+            };
+        }
+        throw new AnalysisException("Unexpected binary operator: " + op);
     }
 }
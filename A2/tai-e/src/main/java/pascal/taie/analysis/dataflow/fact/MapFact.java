@@ -51,7 +51,20 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this(map, true);
+    }
+
+    /**
+     * Constructs a new MapFact with the mappings of specified Map.
+     * Subclasses can pass {@code copy = false} to make this MapFact
+     * directly use their specialized maps to hold the mappings.
+     *
+     * @param map  the map whose mappings are to be placed in this map.
+     * @param copy whether to copy the mappings into a new hybrid map,
+     *             or to use {@code map} itself.
+     */
+    protected MapFact(Map<K, V> map, boolean copy) {
+        this.map = copy ? Maps.newHybridMap(map) : map;
     }
 
     /**
@@ -0,0 +1,157 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Work-list of CFG nodes which always returns the pending node that
+ * comes first in reverse postorder (for forward analysis) or
+ * postorder (for backward analysis) of the CFG, so that a node is
+ * usually processed after the nodes whose facts flow into it.
+ * <p>
+ * Each node appears in the work-list at most once: adding a pending
+ * node has no effect.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class PriorityWorkList<Node> {
+
+    /**
+     * Nodes in the order they should be processed.
+     */
+    private final Node[] nodes;
+
+    /**
+     * Maps each node to its position in {@link #nodes}.
+     */
+    private final Map<Node, Integer> priorities;
+
+    /**
+     * Positions of the pending nodes.
+     */
+    private final BitSet pending;
+
+    /**
+     * Computes the processing order of the nodes of given CFG.
+     * The order is computed by a depth-first search from the entry,
+     * followed by searches from the nodes unreachable from the entry.
+     */
+    PriorityWorkList(CFG<Node> cfg, boolean isForward) {
+        int n = cfg.getNumberOfNodes();
+        @SuppressWarnings("unchecked")
+        Node[] postorder = (Node[]) new Object[n];
+        Map<Node, Integer> post = Maps.newMap(n);
+        int count = dfs(cfg, cfg.getEntry(), post, postorder, 0);
+        for (Node node : cfg) {
+            if (!post.containsKey(node)) {
+                count = dfs(cfg, node, post, postorder, count);
+            }
+        }
+        if (isForward) {
+            // reverse postorder
+            @SuppressWarnings("unchecked")
+            Node[] rpo = (Node[]) new Object[n];
+            for (int i = 0; i < n; ++i) {
+                rpo[i] = postorder[n - 1 - i];
+            }
+            nodes = rpo;
+        } else {
+            nodes = postorder;
+        }
+        priorities = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            priorities.put(nodes[i], i);
+        }
+        pending = new BitSet(n);
+    }
+
+    /**
+     * Iterative depth-first search starting from given node,
+     * which numbers the visited nodes in postorder.
+     *
+     * @return the next unused postorder number.
+     */
+    private static <Node> int dfs(CFG<Node> cfg, Node start,
+                                  Map<Node, Integer> post, Node[] postorder,
+                                  int count) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        // mark visited nodes with -1 until they are finished
+        post.put(start, -1);
+        stack.push(start);
+        succs.push(cfg.getSuccsOf(start).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (!post.containsKey(succ)) {
+                    post.put(succ, -1);
+                    stack.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                Node node = stack.pop();
+                succs.pop();
+                post.put(node, count);
+                postorder[count++] = node;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a node to this work-list if it is not pending.
+     */
+    void add(Node node) {
+        pending.set(priorities.get(node));
+    }
+
+    /**
+     * Adds all nodes of the CFG except the given one to this work-list.
+     */
+    void addAllExcept(Node excluded) {
+        pending.set(0, nodes.length);
+        pending.clear(priorities.get(excluded));
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Removes and returns the pending node with the highest priority.
+     */
+    Node poll() {
+        int i = pending.nextSetBit(0);
+        pending.clear(i);
+        return nodes[i];
+    }
+}
@@ -22,10 +22,14 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Base class for data-flow analysis solver, which provides common
  * functionalities for different solver implementations.
@@ -35,8 +39,24 @@ import pascal.taie.analysis.graph.cfg.CFG;
  */
 public abstract class Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(Solver.class);
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of node transfers performed on all CFGs solved by this solver.
+     */
+    private final LongAdder transferCount = new LongAdder();
+
+    /**
+     * Number of node transfers performed on the CFG being solved by
+     * the current thread. The solver of an analysis is shared by all
+     * methods, which are analyzed in parallel, thus the count of
+     * each CFG is kept per thread.
+     */
+    private final ThreadLocal<int[]> cfgTransferCount =
+            ThreadLocal.withInitial(() -> new int[1]);
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -56,8 +76,10 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        startTransferCount();
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
+        finishTransferCount(cfg);
         return result;
     }
 
@@ -77,7 +99,13 @@ public abstract class Solver<Node, Fact> {
     }
 
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg) {
+            if (!cfg.isEntry(node)) {
+                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact());
+            }
+        }
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
@@ -98,4 +126,47 @@ public abstract class Solver<Node, Fact> {
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    /**
+     * Applies the node transfer function of the analysis,
+     * and counts the transfer.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out) {
+        ++cfgTransferCount.get()[0];
+        return analysis.transferNode(node, in, out);
+    }
+
+    /**
+     * @return the number of node transfers performed by this solver
+     * on all CFGs solved so far.
+     */
+    public long getTransferCount() {
+        return transferCount.sum();
+    }
+
+    /**
+     * Resets the number of node transfers before solving a CFG.
+     */
+    protected void startTransferCount() {
+        cfgTransferCount.get()[0] = 0;
+    }
+
+    /**
+     * @return the number of node transfers performed on the CFG
+     * last solved by the current thread.
+     */
+    public int getLastTransferCount() {
+        return cfgTransferCount.get()[0];
+    }
+
+    /**
+     * Adds the number of node transfers performed on given CFG
+     * to the total count, and logs it.
+     */
+    protected void finishTransferCount(CFG<Node> cfg) {
+        int count = getLastTransferCount();
+        transferCount.add(count);
+        logger.debug("{} node transfers are performed on {}",
+                count, cfg.getMethod());
+    }
 }
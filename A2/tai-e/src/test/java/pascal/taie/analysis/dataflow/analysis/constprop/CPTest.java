@@ -32,6 +32,11 @@ public class CPTest {
                 ConstantPropagation.ID, "edge-refine:false");
     }
 
+    void testCPArrayFact(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;array-fact:true");
+    }
+
     @Test
     public void testAssign() {
         testCP("Assign");
@@ -66,4 +71,19 @@ public class CPTest {
     public void testInterprocedural() {
         testCP("Interprocedural");
     }
+
+    @Test
+    public void testSimpleBinaryArrayFact() {
+        testCPArrayFact("SimpleBinary");
+    }
+
+    @Test
+    public void testBranchConstantArrayFact() {
+        testCPArrayFact("BranchConstant");
+    }
+
+    @Test
+    public void testInterproceduralArrayFact() {
+        testCPArrayFact("Interprocedural");
+    }
 }
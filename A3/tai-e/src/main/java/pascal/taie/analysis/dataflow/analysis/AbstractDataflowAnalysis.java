@@ -23,8 +23,10 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.fact.BlockDataflowResult;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
@@ -37,15 +39,47 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * Whether to only keep the facts at basic block boundaries
+     * in the results, see {@link BlockDataflowResult}. This is implied by
+     * option "block-solver", as the block solver never computes the facts
+     * of all nodes.
+     */
+    private final boolean blockFacts;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        boolean blockSolver = getOptions().getBooleanOrDefault("block-solver", false);
+        blockFacts = blockSolver ||
+                getOptions().getBooleanOrDefault("block-facts", false);
+        solver = blockSolver ?
+                Solver.makeBlockSolver(this) :
+                Solver.makeSolver(this);
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        DataflowResult<Node, Fact> result = solver.solve(cfg);
+        return blockFacts && !(result instanceof BlockDataflowResult) ?
+                new BlockDataflowResult<>(new BlockCFG<>(cfg), this, result) :
+                result;
+    }
+
+    /**
+     * @return the number of node transfers performed by this analysis
+     * on all methods analyzed so far.
+     */
+    public long getTransferCount() {
+        return solver.getTransferCount();
+    }
+
+    /**
+     * @return the number of node transfers performed by this analysis
+     * on the method last analyzed by the current thread.
+     */
+    public int getLastTransferCount() {
+        return solver.getLastTransferCount();
     }
 
     /**
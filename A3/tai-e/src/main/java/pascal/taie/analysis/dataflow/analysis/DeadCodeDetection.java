@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.analysis;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.SparseCPResult;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
@@ -44,8 +45,11 @@ import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
 
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -53,12 +57,25 @@ public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Sparse constant propagation used by the fused mode,
+     * or null if the fused mode is disabled.
+     */
+    private final ConstantPropagation fusedConstProp;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        fusedConstProp = getOptions().getBooleanOrDefault("fused", false) ?
+                new ConstantPropagation(
+                        new AnalysisConfig(ConstantPropagation.ID, "sparse", true)) :
+                null;
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        if (fusedConstProp != null) {
+            return analyzeFused(ir);
+        }
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
@@ -69,11 +86,135 @@ public class DeadCodeDetection extends MethodAnalysis {
                 ir.getResult(LiveVariableAnalysis.ID);
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // TODO - finish me
-        // Your task is to recognize dead code in ir and add it to deadCode
+        Set<Stmt> reachable = getReachableStmts(cfg, constants);
+        for (Stmt stmt : cfg) {
+            if (cfg.isEntry(stmt) || cfg.isExit(stmt)) {
+                continue;
+            }
+            if (!reachable.contains(stmt) || isDeadAssignment(stmt, liveVars)) {
+                deadCode.add(stmt);
+            }
+        }
         return deadCode;
     }
 
+    /**
+     * Detects dead code without the results of constant propagation and
+     * live variable analysis, so that only the CFG needs to be computed
+     * before this analysis (deadcode does not require constprop and
+     * livevar in fused mode, see tai-e-analyses.yml).
+     * <p>
+     * Reachability is obtained from the executable edges computed by
+     * the sparse constant propagation, and liveness is checked on the fly
+     * for each reachable side-effect-free assignment in the same traversal,
+     * so no fact is kept for every statement.
+     */
+    private Set<Stmt> analyzeFused(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        SparseCPResult constants = (SparseCPResult) fusedConstProp.analyze(ir);
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : cfg) {
+            if (cfg.isEntry(stmt) || cfg.isExit(stmt)) {
+                continue;
+            }
+            if (!constants.isReachable(stmt)) {
+                deadCode.add(stmt);
+            } else if (stmt instanceof AssignStmt<?, ?> assign &&
+                    assign.getLValue() instanceof Var var &&
+                    hasNoSideEffect(assign.getRValue()) &&
+                    !isLiveOut(cfg, assign, var)) {
+                deadCode.add(stmt);
+            }
+        }
+        return deadCode;
+    }
+
+    /**
+     * Checks liveness of a single definition by searching forward from it,
+     * which stops at the first use of the defined variable, and does not
+     * go beyond the other definitions of the variable.
+     *
+     * @return true if given variable is live at exit of given statement.
+     */
+    private static boolean isLiveOut(CFG<Stmt> cfg, Stmt def, Var var) {
+        Set<Stmt> visited = Sets.newSet();
+        Deque<Stmt> workList = new ArrayDeque<>(cfg.getSuccsOf(def));
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            if (visited.add(stmt)) {
+                if (stmt.getUses().contains(var)) {
+                    return true;
+                }
+                if (!var.equals(stmt.getDef().orElse(null))) {
+                    workList.addAll(cfg.getSuccsOf(stmt));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the statements reachable from the entry of given CFG,
+     * without following the branches ruled out by constant conditions.
+     */
+    private static Set<Stmt> getReachableStmts(
+            CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> constants) {
+        Set<Stmt> reachable = Sets.newSet(cfg.getNumberOfNodes());
+        Deque<Stmt> workList = new ArrayDeque<>();
+        reachable.add(cfg.getEntry());
+        workList.add(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (isFeasible(edge, constants) &&
+                        reachable.add(edge.getTarget())) {
+                    workList.add(edge.getTarget());
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @return false if given edge is a branch of an if or switch statement
+     * which is never taken as the condition is constant, otherwise true.
+     */
+    private static boolean isFeasible(
+            Edge<Stmt> edge, DataflowResult<Stmt, CPFact> constants) {
+        Stmt source = edge.getSource();
+        if (source instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), constants.getInFact(source));
+            if (cond.isConstant()) {
+                return edge.getKind() == (cond.getConstant() == 1 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+            }
+        } else if (source instanceof SwitchStmt switchStmt) {
+            Value value = constants.getInFact(source).get(switchStmt.getVar());
+            if (value.isConstant()) {
+                int constant = value.getConstant();
+                if (edge.getKind() == Edge.Kind.SWITCH_CASE) {
+                    return edge.getCaseValue() == constant;
+                } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                    return !switchStmt.getCaseValues().contains(constant);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if given statement assigns a variable which is not
+     * live after it, and the right-hand side has no side effect.
+     */
+    private static boolean isDeadAssignment(
+            Stmt stmt, DataflowResult<Stmt, SetFact<Var>> liveVars) {
+        return stmt instanceof AssignStmt<?, ?> assign &&
+                assign.getLValue() instanceof Var var &&
+                !liveVars.getOutFact(stmt).contains(var) &&
+                hasNoSideEffect(assign.getRValue());
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
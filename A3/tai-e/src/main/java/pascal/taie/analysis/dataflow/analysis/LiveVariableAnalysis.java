@@ -22,9 +22,11 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
@@ -36,8 +38,17 @@ public class LiveVariableAnalysis extends
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether to represent facts as bit vectors over variable indexes
+     * ({@link BitSetFact}) instead of hybrid sets ({@link SetFact}).
+     * Bit-vector facts are much cheaper to union, copy and compare
+     * for methods with many variables.
+     */
+    private final boolean bitSet;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        bitSet = getOptions().getBooleanOrDefault("bit-set", false);
     }
 
     @Override
@@ -47,24 +58,42 @@ public class LiveVariableAnalysis extends
 
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return null;
+        return newFact();
     }
 
     @Override
     public SetFact<Var> newInitialFact() {
-        // TODO - finish me
-        return null;
+        return newFact();
+    }
+
+    private SetFact<Var> newFact() {
+        return bitSet ?
+                new BitSetFact<>(v -> v.getMethod().getIR()::getVar) :
+                new SetFact<>();
     }
 
     @Override
     public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        // TODO - finish me
+        target.union(fact);
     }
 
     @Override
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
+        SetFact<Var> newIn = out.copy();
+        stmt.getDef().ifPresent(def -> {
+            if (def instanceof Var var) {
+                newIn.remove(var);
+            }
+        });
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                newIn.add(var);
+            }
+        }
+        if (!newIn.equals(in)) {
+            in.set(newIn);
+            return true;
+        }
         return false;
     }
 }
@@ -48,6 +48,14 @@ public class CPFact extends MapFact<Var, Value> {
         super(map);
     }
 
+    /**
+     * Constructor for subclasses which hold the mappings in
+     * their own map representations.
+     */
+    CPFact(Map<Var, Value> map, boolean copy) {
+        super(map, copy);
+    }
+
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
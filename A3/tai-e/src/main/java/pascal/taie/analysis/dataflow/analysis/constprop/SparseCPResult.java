@@ -0,0 +1,175 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of {@link SparseConstantPropagation}.
+ * <p>
+ * This result does not store a {@link CPFact} for each statement.
+ * Instead, it keeps the value of each SSA definition, and builds the
+ * IN/OUT fact of a statement on demand by walking up the dominator tree
+ * from the statement and collecting the reaching definitions. The facts
+ * are equal to the ones computed by the dense {@link ConstantPropagation}.
+ * <p>
+ * In addition, this result tells which CFG edges are executable and which
+ * statements are reachable, with respect to the constant conditions of
+ * if and switch statements.
+ */
+public class SparseCPResult extends DataflowResult<Stmt, CPFact> {
+
+    private final Map<Stmt, Integer> ids;
+
+    /**
+     * Immediate dominator of each node. The virtual root of the
+     * dominator tree is numbered {@code idom.length - 1}.
+     */
+    private final int[] idom;
+
+    /**
+     * Phi definitions at the beginning of each node, may contain nulls.
+     */
+    private final List<List<SparseConstantPropagation.Def>> phis;
+
+    /**
+     * Definitions of each node, may contain nulls.
+     */
+    private final SparseConstantPropagation.Def[][] defs;
+
+    private final BitSet reachable;
+
+    private final Set<Edge<Stmt>> executableEdges;
+
+    SparseCPResult(Map<Stmt, Integer> ids, int[] idom,
+                   List<List<SparseConstantPropagation.Def>> phis,
+                   SparseConstantPropagation.Def[][] defs,
+                   BitSet reachable, Set<Edge<Stmt>> executableEdges) {
+        this.ids = ids;
+        this.idom = idom;
+        this.phis = phis;
+        this.defs = defs;
+        this.reachable = reachable;
+        this.executableEdges = executableEdges;
+    }
+
+    @Override
+    public CPFact getInFact(Stmt stmt) {
+        Integer id = ids.get(stmt);
+        return id == null ? null : collect(id, false);
+    }
+
+    @Override
+    public CPFact getOutFact(Stmt stmt) {
+        Integer id = ids.get(stmt);
+        return id == null ? null : collect(id, true);
+    }
+
+    /**
+     * Facts of this result are computed on demand and cannot be modified.
+     */
+    @Override
+    public void setInFact(Stmt stmt, CPFact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Facts of this result are computed on demand and cannot be modified.
+     */
+    @Override
+    public void setOutFact(Stmt stmt, CPFact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return true if given statement may be executed, i.e., it is reachable
+     * from the entry via executable edges, otherwise false.
+     */
+    public boolean isReachable(Stmt stmt) {
+        Integer id = ids.get(stmt);
+        return id != null && reachable.get(id);
+    }
+
+    /**
+     * @return true if given edge may be taken, i.e., its source is reachable
+     * and it is not ruled out by a constant condition, otherwise false.
+     */
+    public boolean isExecutable(Edge<Stmt> edge) {
+        return executableEdges.contains(edge);
+    }
+
+    /**
+     * Collects the definitions reaching the beginning (or end,
+     * if {@code includeSelf} is true) of given node.
+     */
+    private CPFact collect(int node, boolean includeSelf) {
+        CPFact fact = new CPFact();
+        BitSet seen = new BitSet();
+        if (includeSelf) {
+            collect(defs[node], fact, seen);
+        }
+        collect(phis.get(node), fact, seen);
+        int root = idom.length - 1;
+        for (int n = idom[node]; n != root; n = idom[n]) {
+            collect(defs[n], fact, seen);
+            collect(phis.get(n), fact, seen);
+        }
+        return fact;
+    }
+
+    private static void collect(SparseConstantPropagation.Def[] defs,
+                                CPFact fact, BitSet seen) {
+        if (defs != null) {
+            for (SparseConstantPropagation.Def def : defs) {
+                collect(def, fact, seen);
+            }
+        }
+    }
+
+    private static void collect(List<SparseConstantPropagation.Def> defs,
+                                CPFact fact, BitSet seen) {
+        if (defs != null) {
+            for (SparseConstantPropagation.Def def : defs) {
+                collect(def, fact, seen);
+            }
+        }
+    }
+
+    private static void collect(SparseConstantPropagation.Def def,
+                                CPFact fact, BitSet seen) {
+        Var var = def.var;
+        if (!seen.get(var.getIndex())) {
+            seen.set(var.getIndex());
+            // CPFact.update() ignores UNDEF, which is the default value
+            fact.update(var, def.value);
+        }
+    }
+}
@@ -0,0 +1,661 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse constant propagation on the SSA form of a method.
+ * <p>
+ * Instead of keeping a {@link CPFact} for every statement, this engine
+ * converts the variables which can hold integers into SSA form (phi
+ * definitions are placed at the iterated dominance frontiers of the
+ * definitions), and propagates a single {@link Value} per definition
+ * along the def-use chains. Then it marks the CFG edges which may be
+ * taken according to the constant conditions of if and switch statements.
+ * Thus, the memory used by this engine is roughly linear in the size of
+ * the method.
+ * <p>
+ * The values of the definitions are equal to the ones computed by the
+ * dense {@link ConstantPropagation}, i.e., phi definitions meet the values
+ * from all predecessors, including the ones whose edges are not executable,
+ * so that both analyses always produce the same facts.
+ */
+class SparseConstantPropagation {
+
+    /**
+     * A definition of a variable in SSA form.
+     */
+    static final class Def {
+
+        final Var var;
+
+        /**
+         * Node which contains this definition.
+         */
+        private final int node;
+
+        private final boolean isPhi;
+
+        Value value = Value.getUndef();
+
+        /**
+         * Operands of a phi definition, i.e., the definitions that reach
+         * the phi from the predecessors (undefined operands are omitted).
+         */
+        private List<Def> phiOperands;
+
+        /**
+         * Definitions whose values depend on this definition.
+         */
+        private List<Def> users;
+
+        private boolean inWorkList;
+
+        private Def(Var var, int node, boolean isPhi) {
+            this.var = var;
+            this.node = node;
+            this.isPhi = isPhi;
+        }
+
+        private void addUser(Def user) {
+            if (users == null) {
+                users = new ArrayList<>(2);
+            }
+            users.add(user);
+        }
+    }
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final IR ir;
+
+    /**
+     * CFG nodes indexed by their ids. The virtual root, which has
+     * id {@link #root}, precedes the entry and all nodes unreachable
+     * from the entry, and implicitly defines every variable as UNDEF.
+     */
+    private final Stmt[] nodes;
+
+    private final int root;
+
+    private final Map<Stmt, Integer> ids;
+
+    private final int[][] preds;
+
+    private final int[][] succs;
+
+    /**
+     * Whether each variable (by {@link Var#getIndex()}) is tracked,
+     * i.e., it can hold integers.
+     */
+    private final boolean[] tracked;
+
+    private int[] idom;
+
+    private List<List<Def>> phis;
+
+    private Def[][] defs;
+
+    /**
+     * Tracked variables used by the definition, if or switch
+     * statement of each node, and their reaching definitions.
+     */
+    private Var[][] useVars;
+
+    private Def[][] useDefs;
+
+    SparseConstantPropagation(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.ir = cfg.getIR();
+        int n = cfg.getNumberOfNodes();
+        nodes = cfg.getNodes().toArray(new Stmt[0]);
+        root = n;
+        ids = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            ids.put(nodes[i], i);
+        }
+        preds = new int[n + 1][];
+        succs = new int[n + 1][];
+        for (int i = 0; i < n; ++i) {
+            preds[i] = toIds(cfg.getPredsOf(nodes[i]));
+            succs[i] = toIds(cfg.getSuccsOf(nodes[i]));
+        }
+        preds[root] = new int[0];
+        List<Var> vars = ir.getVars();
+        tracked = new boolean[vars.size()];
+        for (Var var : vars) {
+            tracked[var.getIndex()] = ConstantPropagation.canHoldInt(var);
+        }
+    }
+
+    private int[] toIds(Set<Stmt> stmts) {
+        int[] result = new int[stmts.size()];
+        int i = 0;
+        for (Stmt stmt : stmts) {
+            result[i++] = ids.get(stmt);
+        }
+        return result;
+    }
+
+    SparseCPResult solve() {
+        int[] rpo = computeOrder();
+        computeDominators(rpo);
+        placePhis();
+        rename();
+        propagate();
+        BitSet reachable = new BitSet(root);
+        Set<Edge<Stmt>> executableEdges = computeExecutableEdges(reachable);
+        return new SparseCPResult(ids, idom, phis, defs,
+                reachable, executableEdges);
+    }
+
+    // ---------- dominator tree ----------
+
+    /**
+     * Computes the reverse postorder of all nodes (including the root),
+     * and adds an edge from the root to each node unreachable
+     * from the entry which starts a new depth-first search.
+     */
+    private int[] computeOrder() {
+        int[] postorder = new int[root + 1];
+        boolean[] visited = new boolean[root + 1];
+        int[] stack = new int[root];
+        int[] next = new int[root];
+        List<Integer> rootSuccs = new ArrayList<>();
+        int entry = ids.get(cfg.getEntry());
+        addRootEdge(entry, rootSuccs);
+        int count = dfs(entry, visited, stack, next, postorder, 0);
+        for (int i = 0; i < root; ++i) {
+            if (!visited[i]) {
+                addRootEdge(i, rootSuccs);
+                count = dfs(i, visited, stack, next, postorder, count);
+            }
+        }
+        succs[root] = rootSuccs.stream().mapToInt(Integer::intValue).toArray();
+        postorder[count] = root;
+        int[] rpo = new int[root + 1];
+        for (int i = 0; i <= root; ++i) {
+            rpo[i] = postorder[root - i];
+        }
+        return rpo;
+    }
+
+    private void addRootEdge(int node, List<Integer> rootSuccs) {
+        rootSuccs.add(node);
+        preds[node] = Arrays.copyOf(preds[node], preds[node].length + 1);
+        preds[node][preds[node].length - 1] = root;
+    }
+
+    /**
+     * Iterative depth-first search which numbers the visited nodes
+     * in postorder.
+     *
+     * @return the next unused postorder number.
+     */
+    private int dfs(int start, boolean[] visited, int[] stack, int[] next,
+                    int[] postorder, int count) {
+        int top = 0;
+        visited[start] = true;
+        next[top] = 0;
+        stack[top++] = start;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (next[top - 1] < succs[node].length) {
+                int succ = succs[node][next[top - 1]++];
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    next[top] = 0;
+                    stack[top++] = succ;
+                }
+            } else {
+                --top;
+                postorder[count++] = node;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes immediate dominators by the algorithm of Cooper, Harvey
+     * and Kennedy, "A Simple, Fast Dominance Algorithm".
+     */
+    private void computeDominators(int[] rpo) {
+        int[] order = new int[root + 1];
+        for (int i = 0; i <= root; ++i) {
+            order[rpo[i]] = i;
+        }
+        idom = new int[root + 1];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i <= root; ++i) {
+                int node = rpo[i];
+                int newIdom = -1;
+                for (int pred : preds[node]) {
+                    if (idom[pred] != -1) {
+                        newIdom = newIdom == -1 ? pred
+                                : intersect(pred, newIdom, order);
+                    }
+                }
+                if (idom[node] != newIdom) {
+                    idom[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int n1, int n2, int[] order) {
+        while (n1 != n2) {
+            while (order[n1] > order[n2]) {
+                n1 = idom[n1];
+            }
+            while (order[n2] > order[n1]) {
+                n2 = idom[n2];
+            }
+        }
+        return n1;
+    }
+
+    // ---------- SSA construction ----------
+
+    /**
+     * Places phi definitions at the iterated dominance frontiers
+     * of the definitions of each tracked variable.
+     */
+    private void placePhis() {
+        // dominance frontiers
+        int[][] df = new int[root + 1][];
+        int[] dfSizes = new int[root + 1];
+        for (int node = 0; node < root; ++node) {
+            if (preds[node].length < 2) {
+                continue;
+            }
+            for (int pred : preds[node]) {
+                for (int runner = pred; runner != idom[node]; runner = idom[runner]) {
+                    // node is added to df[runner] for all preds in a row,
+                    // so checking the last element is enough to avoid duplicates
+                    if (dfSizes[runner] == 0 || df[runner][dfSizes[runner] - 1] != node) {
+                        append(df, dfSizes, runner, node);
+                    }
+                }
+            }
+        }
+        // definitions
+        defs = new Def[root + 1][];
+        int[][] defSites = new int[tracked.length][];
+        int[] defSiteSizes = new int[tracked.length];
+        int entry = ids.get(cfg.getEntry());
+        List<Def> params = new ArrayList<>();
+        for (Var param : ir.getParams()) {
+            if (tracked[param.getIndex()]) {
+                Def def = new Def(param, entry, false);
+                def.value = Value.getNAC();
+                params.add(def);
+                append(defSites, defSiteSizes, param.getIndex(), entry);
+            }
+        }
+        if (!params.isEmpty()) {
+            defs[entry] = params.toArray(new Def[0]);
+        }
+        for (int node = 0; node < root; ++node) {
+            Var var = getDefinedVar(nodes[node]);
+            if (var != null) {
+                defs[node] = new Def[]{ new Def(var, node, false) };
+                append(defSites, defSiteSizes, var.getIndex(), node);
+            }
+        }
+        // phis
+        phis = newNullList(root + 1);
+        int[] hasPhi = new int[root + 1];
+        int[] added = new int[root + 1];
+        int[] workList = new int[root + 1];
+        for (int v = 0; v < tracked.length; ++v) {
+            if (defSites[v] == null) {
+                continue;
+            }
+            Var var = ir.getVar(v);
+            int stamp = v + 1;
+            int size = 0;
+            for (int i = 0; i < defSiteSizes[v]; ++i) {
+                int node = defSites[v][i];
+                if (added[node] != stamp) {
+                    added[node] = stamp;
+                    workList[size++] = node;
+                }
+            }
+            while (size > 0) {
+                int node = workList[--size];
+                for (int i = 0; i < dfSizes[node]; ++i) {
+                    int frontier = df[node][i];
+                    if (hasPhi[frontier] != stamp) {
+                        hasPhi[frontier] = stamp;
+                        if (phis.get(frontier) == null) {
+                            phis.set(frontier, new ArrayList<>(2));
+                        }
+                        phis.get(frontier).add(new Def(var, frontier, true));
+                        if (added[frontier] != stamp) {
+                            added[frontier] = stamp;
+                            workList[size++] = frontier;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a mutable list of given size whose elements are all null.
+     */
+    private static <T> List<T> newNullList(int size) {
+        return new ArrayList<>(Collections.nCopies(size, null));
+    }
+
+    private static void append(int[][] lists, int[] sizes, int i, int value) {
+        if (lists[i] == null) {
+            lists[i] = new int[2];
+        } else if (sizes[i] == lists[i].length) {
+            lists[i] = Arrays.copyOf(lists[i], sizes[i] * 2);
+        }
+        lists[i][sizes[i]++] = value;
+    }
+
+    /**
+     * @return the tracked variable defined by given statement, or null
+     * if the statement does not define any tracked variable.
+     */
+    private Var getDefinedVar(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var var &&
+                tracked[var.getIndex()]) {
+            return var;
+        }
+        return null;
+    }
+
+    /**
+     * Connects each use of tracked variables to its reaching definition
+     * by traversing the dominator tree.
+     */
+    private void rename() {
+        // children in dominator tree
+        int[][] children = new int[root + 1][];
+        int[] childrenSizes = new int[root + 1];
+        for (int node = 0; node < root; ++node) {
+            append(children, childrenSizes, idom[node], node);
+        }
+        useVars = new Var[root][];
+        useDefs = new Def[root][];
+        List<Deque<Def>> stacks = newNullList(tracked.length);
+        Deque<Integer> workList = new ArrayDeque<>();
+        workList.push(root);
+        while (!workList.isEmpty()) {
+            int node = workList.pop();
+            if (node < 0) {
+                leave(~node, stacks);
+                continue;
+            }
+            if (node != root) {
+                enter(node, stacks);
+                workList.push(~node);
+            }
+            for (int i = 0; i < childrenSizes[node]; ++i) {
+                workList.push(children[node][i]);
+            }
+        }
+    }
+
+    private void enter(int node, List<Deque<Def>> stacks) {
+        if (phis.get(node) != null) {
+            for (Def phi : phis.get(node)) {
+                push(stacks, phi);
+            }
+        }
+        Stmt stmt = nodes[node];
+        if (defs[node] != null || stmt instanceof If
+                || stmt instanceof SwitchStmt) {
+            recordUses(node, stacks);
+        }
+        if (defs[node] != null) {
+            for (Def def : defs[node]) {
+                push(stacks, def);
+            }
+        }
+        for (int succ : succs[node]) {
+            if (phis.get(succ) != null) {
+                for (Def phi : phis.get(succ)) {
+                    Def operand = peek(stacks, phi.var);
+                    if (operand != null) {
+                        if (phi.phiOperands == null) {
+                            phi.phiOperands = new ArrayList<>(preds[succ].length);
+                        }
+                        phi.phiOperands.add(operand);
+                        operand.addUser(phi);
+                    }
+                }
+            }
+        }
+    }
+
+    private void recordUses(int node, List<Deque<Def>> stacks) {
+        List<Var> vars = new ArrayList<>();
+        for (RValue use : nodes[node].getUses()) {
+            if (use instanceof Var var && tracked[var.getIndex()]
+                    && !vars.contains(var)) {
+                vars.add(var);
+            }
+        }
+        if (vars.isEmpty()) {
+            return;
+        }
+        Var[] uses = vars.toArray(new Var[0]);
+        Def[] reaching = new Def[uses.length];
+        for (int i = 0; i < uses.length; ++i) {
+            reaching[i] = peek(stacks, uses[i]);
+        }
+        useVars[node] = uses;
+        useDefs[node] = reaching;
+        // the entry, which defines the parameters, does not use any
+        // variable, so defs[node] here is the definition of the statement
+        if (defs[node] != null) {
+            Def def = defs[node][0];
+            for (Def d : reaching) {
+                if (d != null) {
+                    d.addUser(def);
+                }
+            }
+        }
+    }
+
+    private void leave(int node, List<Deque<Def>> stacks) {
+        if (defs[node] != null) {
+            for (Def def : defs[node]) {
+                stacks.get(def.var.getIndex()).pop();
+            }
+        }
+        if (phis.get(node) != null) {
+            for (Def phi : phis.get(node)) {
+                stacks.get(phi.var.getIndex()).pop();
+            }
+        }
+    }
+
+    private static void push(List<Deque<Def>> stacks, Def def) {
+        int v = def.var.getIndex();
+        if (stacks.get(v) == null) {
+            stacks.set(v, new ArrayDeque<>());
+        }
+        stacks.get(v).push(def);
+    }
+
+    private static Def peek(List<Deque<Def>> stacks, Var var) {
+        Deque<Def> stack = stacks.get(var.getIndex());
+        return stack == null ? null : stack.peek();
+    }
+
+    // ---------- propagation ----------
+
+    private void propagate() {
+        Deque<Def> workList = new ArrayDeque<>();
+        for (int node = 0; node < root; ++node) {
+            if (phis.get(node) != null) {
+                phis.get(node).forEach(phi -> add(workList, phi));
+            }
+            if (defs[node] != null && !nodes[node].equals(cfg.getEntry())) {
+                add(workList, defs[node][0]);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Def def = workList.poll();
+            def.inWorkList = false;
+            Value value = evaluate(def);
+            if (!value.equals(def.value)) {
+                def.value = value;
+                if (def.users != null) {
+                    def.users.forEach(user -> add(workList, user));
+                }
+            }
+        }
+    }
+
+    private static void add(Deque<Def> workList, Def def) {
+        if (!def.inWorkList) {
+            def.inWorkList = true;
+            workList.add(def);
+        }
+    }
+
+    private Value evaluate(Def def) {
+        if (def.isPhi) {
+            Value value = Value.getUndef();
+            if (def.phiOperands != null) {
+                for (Def operand : def.phiOperands) {
+                    value = cp.meetValue(value, operand.value);
+                }
+            }
+            return value;
+        } else {
+            DefinitionStmt<?, ?> stmt = (DefinitionStmt<?, ?>) nodes[def.node];
+            return ConstantPropagation.evaluate(stmt.getRValue(), getUseFact(def.node));
+        }
+    }
+
+    /**
+     * @return a fact which contains the values of the tracked variables
+     * used by given node.
+     */
+    private CPFact getUseFact(int node) {
+        CPFact fact = new CPFact();
+        Var[] vars = useVars[node];
+        if (vars != null) {
+            Def[] reaching = useDefs[node];
+            for (int i = 0; i < vars.length; ++i) {
+                if (reaching[i] != null) {
+                    fact.update(vars[i], reaching[i].value);
+                }
+            }
+        }
+        return fact;
+    }
+
+    // ---------- executable edges ----------
+
+    /**
+     * Computes the nodes reachable from the entry via executable edges.
+     *
+     * @return the executable edges.
+     */
+    private Set<Edge<Stmt>> computeExecutableEdges(BitSet reachable) {
+        Set<Edge<Stmt>> executableEdges = new HashSet<>();
+        Deque<Integer> workList = new ArrayDeque<>();
+        int entry = ids.get(cfg.getEntry());
+        reachable.set(entry);
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            int node = workList.poll();
+            Stmt stmt = nodes[node];
+            for (Edge<Stmt> edge : getExecutableOutEdges(node, stmt)) {
+                executableEdges.add(edge);
+                int target = ids.get(edge.getTarget());
+                if (!reachable.get(target)) {
+                    reachable.set(target);
+                    workList.add(target);
+                }
+            }
+        }
+        return executableEdges;
+    }
+
+    private List<Edge<Stmt>> getExecutableOutEdges(int node, Stmt stmt) {
+        Set<Edge<Stmt>> outEdges = cfg.getOutEdgesOf(stmt);
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), getUseFact(node));
+            if (cond.isConstant()) {
+                Edge.Kind taken = cond.getConstant() == 1 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
+                return outEdges.stream()
+                        .filter(e -> e.getKind() == taken)
+                        .toList();
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value value = getUseFact(node).get(switchStmt.getVar());
+            if (value.isConstant()) {
+                int c = value.getConstant();
+                List<Edge<Stmt>> cases = outEdges.stream()
+                        .filter(e -> e.isSwitchCase() && e.getCaseValue() == c)
+                        .toList();
+                return !cases.isEmpty() ? cases : outEdges.stream()
+                        .filter(e -> e.getKind() == Edge.Kind.SWITCH_DEFAULT)
+                        .toList();
+            }
+        }
+        return List.copyOf(outEdges);
+    }
+}
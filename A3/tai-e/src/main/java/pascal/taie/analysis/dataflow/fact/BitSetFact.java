@@ -0,0 +1,61 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Set-like data-flow facts represented as bit vectors over the indexes
+ * of the elements, e.g., {@link pascal.taie.ir.exp.Var#getIndex()}.
+ * Union, intersection and equality test of two such facts are
+ * word-parallel, and {@link #copy()} shares the bits until either
+ * fact is modified.
+ * <p>
+ * The iteration order of this fact is the ascending order of indexes,
+ * which may differ from that of {@link SetFact}.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    /**
+     * @param decoderOf given an element, returns the function that maps
+     *                  indexes to the elements of the same universe, e.g.,
+     *                  for variables, {@code v -> v.getMethod().getIR()::getVar}.
+     */
+    public BitSetFact(Function<? super E, IntFunction<E>> decoderOf) {
+        this(new IndexBitSet<>(decoderOf));
+    }
+
+    private BitSetFact(IndexBitSet<E> set) {
+        super(set);
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(((IndexBitSet<E>) set).copy());
+    }
+}
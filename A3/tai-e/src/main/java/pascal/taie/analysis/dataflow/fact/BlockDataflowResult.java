@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Data-flow result which only keeps one fact per basic block, i.e.,
+ * the IN fact of the first node of the block (for forward analyses)
+ * or the OUT fact of the last node of the block (for backward analyses).
+ * The facts of the other nodes in a block are recomputed on demand by
+ * applying the transfer functions of the analysis through the block,
+ * thus this result keeps fewer facts by a factor of the average block
+ * length than {@link DataflowResult}.
+ * <p>
+ * The facts of the most recently queried block are cached, so that
+ * querying the nodes of a block one by one (e.g., iterating the
+ * statements of a method in order) recomputes the block only once.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class BlockDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private final BlockCFG<Node> blockCFG;
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    /**
+     * The retained fact of each block, indexed by {@link BasicBlock#getIndex()}.
+     * The fact of the block of the entry (for forward analyses) or the exit
+     * (for backward analyses) is the boundary fact.
+     */
+    private final Object[] blockFacts;
+
+    /**
+     * Facts of the most recently queried block.
+     */
+    private volatile BlockFacts<Node, Fact> cache;
+
+    /**
+     * Creates a result which retains the block facts of given result.
+     *
+     * @param blockCFG basic-block view of the CFG where the result is computed
+     * @param analysis the analysis which computed the result
+     * @param result   the result to be compacted
+     */
+    public BlockDataflowResult(BlockCFG<Node> blockCFG,
+                               DataflowAnalysis<Node, Fact> analysis,
+                               DataflowResult<Node, Fact> result) {
+        this(blockCFG, analysis, block -> {
+            CFG<Node> cfg = blockCFG.getCFG();
+            if (analysis.isForward()) {
+                return block == blockCFG.getEntry() ?
+                        result.getOutFact(cfg.getEntry()) :
+                        result.getInFact(block.getFirst());
+            } else {
+                return block == blockCFG.getExit() ?
+                        result.getInFact(cfg.getExit()) :
+                        result.getOutFact(block.getLast());
+            }
+        });
+    }
+
+    /**
+     * Creates a result from the block facts, e.g., the ones computed
+     * by a block-level solver.
+     *
+     * @param blockCFG  basic-block view of the CFG where the result is computed
+     * @param analysis  the analysis which computed the result
+     * @param blockFact given a block, returns its block fact
+     */
+    public BlockDataflowResult(BlockCFG<Node> blockCFG,
+                               DataflowAnalysis<Node, Fact> analysis,
+                               Function<BasicBlock<Node>, Fact> blockFact) {
+        this.blockCFG = blockCFG;
+        this.analysis = analysis;
+        List<BasicBlock<Node>> blocks = blockCFG.getBlocks();
+        blockFacts = new Object[blocks.size()];
+        for (BasicBlock<Node> block : blocks) {
+            blockFacts[block.getIndex()] = blockFact.apply(block);
+        }
+    }
+
+    /**
+     * @return true if given block contains the node with the boundary fact.
+     */
+    private boolean isBoundary(BasicBlock<Node> block) {
+        return block == (analysis.isForward() ?
+                blockCFG.getEntry() : blockCFG.getExit());
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        return block == null ? null :
+                getFacts(block).inFacts[blockCFG.getOffsetOf(node)];
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        BasicBlock<Node> block = blockCFG.getBlockOf(node);
+        return block == null ? null :
+                getFacts(block).outFacts[blockCFG.getOffsetOf(node)];
+    }
+
+    /**
+     * Facts of this result are derived from the block facts,
+     * and cannot be modified.
+     */
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Facts of this result are derived from the block facts,
+     * and cannot be modified.
+     */
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    private BlockFacts<Node, Fact> getFacts(BasicBlock<Node> block) {
+        BlockFacts<Node, Fact> facts = cache;
+        if (facts == null || facts.block != block) {
+            facts = computeFacts(block);
+            cache = facts;
+        }
+        return facts;
+    }
+
+    /**
+     * Recomputes the facts of the nodes in given block from its block fact,
+     * in the same way as the solver computes them.
+     */
+    @SuppressWarnings("unchecked")
+    private BlockFacts<Node, Fact> computeFacts(BasicBlock<Node> block) {
+        int size = block.size();
+        Object[] inFacts = new Object[size];
+        Object[] outFacts = new Object[size];
+        Fact blockFact = (Fact) blockFacts[block.getIndex()];
+        List<Node> nodes = block.getNodes();
+        if (isBoundary(block)) {
+            // the boundary node (entry or exit) is in its own block,
+            // and the solver does not compute its other fact
+            if (analysis.isForward()) {
+                outFacts[0] = blockFact;
+            } else {
+                inFacts[0] = blockFact;
+            }
+        } else if (analysis.isForward()) {
+            inFacts[0] = blockFact;
+            for (int i = 0; i < size; ++i) {
+                Node node = nodes.get(i);
+                if (i > 0) {
+                    Fact predOut = (Fact) outFacts[i - 1];
+                    for (Edge<Node> inEdge : blockCFG.getCFG().getInEdgesOf(node)) {
+                        if (analysis.needTransferEdge(inEdge)) {
+                            predOut = analysis.transferEdge(inEdge, predOut);
+                        }
+                    }
+                    Fact in = analysis.newInitialFact();
+                    analysis.meetInto(predOut, in);
+                    inFacts[i] = in;
+                }
+                Fact out = analysis.newInitialFact();
+                analysis.transferNode(node, (Fact) inFacts[i], out);
+                outFacts[i] = out;
+            }
+        } else {
+            outFacts[size - 1] = blockFact;
+            for (int i = size - 1; i >= 0; --i) {
+                Node node = nodes.get(i);
+                if (i < size - 1) {
+                    Fact out = analysis.newInitialFact();
+                    analysis.meetInto((Fact) inFacts[i + 1], out);
+                    outFacts[i] = out;
+                }
+                Fact in = analysis.newInitialFact();
+                analysis.transferNode(node, in, (Fact) outFacts[i]);
+                inFacts[i] = in;
+            }
+        }
+        return new BlockFacts<>(block, (Fact[]) inFacts, (Fact[]) outFacts);
+    }
+
+    private static class BlockFacts<Node, Fact> {
+
+        private final BasicBlock<Node> block;
+
+        private final Fact[] inFacts;
+
+        private final Fact[] outFacts;
+
+        private BlockFacts(BasicBlock<Node> block, Fact[] inFacts, Fact[] outFacts) {
+            this.block = block;
+            this.inFacts = inFacts;
+            this.outFacts = outFacts;
+        }
+    }
+}
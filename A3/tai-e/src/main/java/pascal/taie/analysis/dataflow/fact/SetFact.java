@@ -48,6 +48,14 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Creates a fact backed by the given bit set, which is used directly
+     * instead of being copied into a hybrid set.
+     */
+    SetFact(IndexBitSet<E> set) {
+        this.set = set;
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -0,0 +1,202 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.BlockDataflowResult;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BlockCFG;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import java.util.List;
+
+/**
+ * Work-list solver which schedules basic blocks instead of single nodes.
+ * When a block is processed, the transfer functions of its nodes are
+ * applied straight through the block, and only the facts at the block
+ * boundaries are kept during solving, i.e., the IN and OUT facts of each
+ * block. As a node in the middle of a block has exactly one predecessor,
+ * its IN fact is just the OUT fact of the previous node, thus no meet is
+ * needed within a block.
+ * <p>
+ * The solver returns the block facts as a {@link BlockDataflowResult},
+ * so it never allocates the facts of all nodes.
+ */
+class BlockWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        startTransferCount();
+        BlockCFG<Node> blockCFG = new BlockCFG<>(cfg);
+        Fact boundary = analysis.newBoundaryFact(cfg);
+        DataflowResult<Node, Fact> result = analysis.isForward() ?
+                solveForward(blockCFG, boundary) :
+                solveBackward(blockCFG, boundary);
+        finishTransferCount(cfg);
+        return result;
+    }
+
+    /**
+     * This solver does not fill a result of all nodes, see {@link #solve}.
+     */
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * This solver does not fill a result of all nodes, see {@link #solve}.
+     */
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return the result which keeps the IN facts of the blocks.
+     */
+    private BlockDataflowResult<Node, Fact> solveForward(
+            BlockCFG<Node> blockCFG, Fact boundary) {
+        CFG<Node> cfg = blockCFG.getCFG();
+        BasicBlock<Node> entry = blockCFG.getEntry();
+        int n = blockCFG.getNumberOfNodes();
+        Object[] inFacts = new Object[n];
+        Object[] outFacts = new Object[n];
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            if (block == entry) {
+                inFacts[block.getIndex()] = boundary;
+                outFacts[block.getIndex()] = boundary;
+            } else {
+                inFacts[block.getIndex()] = analysis.newInitialFact();
+                outFacts[block.getIndex()] = analysis.newInitialFact();
+            }
+        }
+        PriorityWorkList<BasicBlock<Node>> workList =
+                new PriorityWorkList<>(blockCFG, entry, true);
+        workList.addAllExcept(entry);
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact in = getFact(inFacts, block);
+            for (Edge<Node> inEdge : cfg.getInEdgesOf(block.getFirst())) {
+                // the source of an in edge is the last node of its block
+                Fact predOut = getFact(outFacts,
+                        blockCFG.getBlockOf(inEdge.getSource()));
+                if (analysis.needTransferEdge(inEdge)) {
+                    predOut = analysis.transferEdge(inEdge, predOut);
+                }
+                analysis.meetInto(predOut, in);
+            }
+            if (transferBlockForward(cfg, block, in, getFact(outFacts, block))) {
+                blockCFG.getSuccsOf(block).forEach(workList::add);
+            }
+        }
+        return new BlockDataflowResult<>(blockCFG, analysis,
+                block -> getFact(inFacts, block));
+    }
+
+    /**
+     * Applies the transfer functions of the nodes in given block in order.
+     *
+     * @return true if the OUT fact of the block changed, otherwise false.
+     */
+    private boolean transferBlockForward(CFG<Node> cfg, BasicBlock<Node> block,
+                                         Fact in, Fact out) {
+        List<Node> nodes = block.getNodes();
+        Fact fact = in;
+        for (int i = 0; i < nodes.size() - 1; ++i) {
+            Fact nodeOut = analysis.newInitialFact();
+            transferNode(nodes.get(i), fact, nodeOut);
+            // the next node has only one in edge
+            for (Edge<Node> edge : cfg.getInEdgesOf(nodes.get(i + 1))) {
+                if (analysis.needTransferEdge(edge)) {
+                    nodeOut = analysis.transferEdge(edge, nodeOut);
+                }
+            }
+            fact = nodeOut;
+        }
+        return transferNode(block.getLast(), fact, out);
+    }
+
+    /**
+     * @return the result which keeps the OUT facts of the blocks.
+     */
+    private BlockDataflowResult<Node, Fact> solveBackward(
+            BlockCFG<Node> blockCFG, Fact boundary) {
+        BasicBlock<Node> exit = blockCFG.getExit();
+        int n = blockCFG.getNumberOfNodes();
+        Object[] inFacts = new Object[n];
+        Object[] outFacts = new Object[n];
+        for (BasicBlock<Node> block : blockCFG.getBlocks()) {
+            if (block == exit) {
+                inFacts[block.getIndex()] = boundary;
+                outFacts[block.getIndex()] = boundary;
+            } else {
+                inFacts[block.getIndex()] = analysis.newInitialFact();
+                outFacts[block.getIndex()] = analysis.newInitialFact();
+            }
+        }
+        PriorityWorkList<BasicBlock<Node>> workList =
+                new PriorityWorkList<>(blockCFG, blockCFG.getEntry(), false);
+        workList.addAllExcept(exit);
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact out = getFact(outFacts, block);
+            for (BasicBlock<Node> succ : blockCFG.getSuccsOf(block)) {
+                analysis.meetInto(getFact(inFacts, succ), out);
+            }
+            if (transferBlockBackward(block, getFact(inFacts, block), out)) {
+                blockCFG.getPredsOf(block).forEach(workList::add);
+            }
+        }
+        return new BlockDataflowResult<>(blockCFG, analysis,
+                block -> getFact(outFacts, block));
+    }
+
+    /**
+     * Applies the transfer functions of the nodes in given block
+     * in reverse order.
+     *
+     * @return true if the IN fact of the block changed, otherwise false.
+     */
+    private boolean transferBlockBackward(BasicBlock<Node> block, Fact in, Fact out) {
+        List<Node> nodes = block.getNodes();
+        Fact fact = out;
+        for (int i = nodes.size() - 1; i > 0; --i) {
+            Fact nodeIn = analysis.newInitialFact();
+            transferNode(nodes.get(i), nodeIn, fact);
+            fact = nodeIn;
+        }
+        return transferNode(block.getFirst(), in, fact);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact getFact(Object[] facts, BasicBlock<Node> block) {
+        return (Fact) facts[block.getIndex()];
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
@@ -34,11 +35,37 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        PriorityWorkList<Node> workList = new PriorityWorkList<>(cfg, true);
+        workList.addAllExcept(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (Edge<Node> inEdge : cfg.getInEdgesOf(node)) {
+                Fact predOut = result.getOutFact(inEdge.getSource());
+                if (analysis.needTransferEdge(inEdge)) {
+                    predOut = analysis.transferEdge(inEdge, predOut);
+                }
+                analysis.meetInto(predOut, in);
+            }
+            if (transferNode(node, in, result.getOutFact(node))) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+            }
+        }
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        PriorityWorkList<Node> workList = new PriorityWorkList<>(cfg, false);
+        workList.addAllExcept(cfg.getExit());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (transferNode(node, result.getInFact(node), out)) {
+                cfg.getPredsOf(node).forEach(workList::add);
+            }
+        }
     }
 }
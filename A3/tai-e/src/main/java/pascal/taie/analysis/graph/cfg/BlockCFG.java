@@ -0,0 +1,199 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Views;
+import pascal.taie.util.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Basic-block view of a {@link CFG}. The nodes of this graph are
+ * {@link BasicBlock}s, and there is an edge from block b1 to block b2
+ * iff there is an edge from the last node of b1 to the first node of b2
+ * in the underlying CFG.
+ * <p>
+ * The entry and the exit of the CFG are always in their own blocks.
+ *
+ * @param <N> type of CFG nodes.
+ */
+public class BlockCFG<N> implements Graph<BasicBlock<N>> {
+
+    private final CFG<N> cfg;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Map<N, BasicBlock<N>> blockOf;
+
+    /**
+     * Position of each node in its block.
+     */
+    private final Map<N, Integer> offsetOf;
+
+    public BlockCFG(CFG<N> cfg) {
+        this.cfg = cfg;
+        this.blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        this.offsetOf = Maps.newMap(cfg.getNumberOfNodes());
+        for (N node : cfg) {
+            if (isHead(node)) {
+                buildBlock(node);
+            }
+        }
+        // nodes which are not yet in any block form cycles that cannot be
+        // entered from outside, so we start a block from any of them
+        for (N node : cfg) {
+            if (!offsetOf.containsKey(node)) {
+                buildBlock(node);
+            }
+        }
+    }
+
+    /**
+     * @return true if given node must start a basic block.
+     */
+    private boolean isHead(N node) {
+        if (cfg.isEntry(node) || cfg.isExit(node)) {
+            return true;
+        }
+        Set<N> preds = cfg.getPredsOf(node);
+        if (preds.size() != 1) {
+            return true;
+        }
+        N pred = preds.iterator().next();
+        return cfg.isEntry(pred) || cfg.getSuccsOf(pred).size() != 1;
+    }
+
+    private void buildBlock(N head) {
+        List<N> nodes = new ArrayList<>();
+        N node = head;
+        while (true) {
+            // nodes of this block and of the built blocks are all
+            // in offsetOf, so the checks below take constant time
+            offsetOf.put(node, nodes.size());
+            nodes.add(node);
+            if (cfg.isEntry(node)) {
+                break;
+            }
+            Set<N> succs = cfg.getSuccsOf(node);
+            if (succs.size() != 1) {
+                break;
+            }
+            N succ = succs.iterator().next();
+            if (isHead(succ) || offsetOf.containsKey(succ)) {
+                break;
+            }
+            node = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), nodes);
+        blocks.add(block);
+        nodes.forEach(n -> blockOf.put(n, block));
+    }
+
+    /**
+     * @return the underlying CFG.
+     */
+    public CFG<N> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return all blocks of this graph, where the i-th block has index i.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return the block containing given CFG node, or null if the node
+     * is not in the underlying CFG.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the position of given CFG node in its block,
+     * or -1 if the node is not in the underlying CFG.
+     */
+    public int getOffsetOf(N node) {
+        return offsetOf.getOrDefault(node, -1);
+    }
+
+    public BasicBlock<N> getEntry() {
+        return blockOf.get(cfg.getEntry());
+    }
+
+    public BasicBlock<N> getExit() {
+        return blockOf.get(cfg.getExit());
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock<N> block) {
+        return block.getIndex() < blocks.size() &&
+                blocks.get(block.getIndex()) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock<N> source, BasicBlock<N> target) {
+        return cfg.hasEdge(source.getLast(), target.getFirst());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getPredsOf(BasicBlock<N> block) {
+        return Views.toMappedSet(cfg.getPredsOf(block.getFirst()), blockOf::get);
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getSuccsOf(BasicBlock<N> block) {
+        return Views.toMappedSet(cfg.getSuccsOf(block.getLast()), blockOf::get);
+    }
+
+    /**
+     * @return the CFG edges that enter given block.
+     */
+    public Set<Edge<N>> getCFGInEdgesOf(BasicBlock<N> block) {
+        return cfg.getInEdgesOf(block.getFirst());
+    }
+
+    /**
+     * @return the CFG edges that leave given block.
+     */
+    public Set<Edge<N>> getCFGOutEdgesOf(BasicBlock<N> block) {
+        return cfg.getOutEdgesOf(block.getLast());
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        return Views.toMappedSet(blocks, b -> b);
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
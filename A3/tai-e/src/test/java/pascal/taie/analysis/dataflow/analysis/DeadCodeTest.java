@@ -22,8 +22,17 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
 
 public class DeadCodeTest {
 
@@ -34,6 +43,15 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testFusedDCD(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "fused:true");
+        // fused mode does not need constprop and livevar to run before it
+        IR ir = World.get().getMainMethod().getIR();
+        Assert.assertNull(ir.getResult(ConstantPropagation.ID));
+        Assert.assertNull(ir.getResult(LiveVariableAnalysis.ID));
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -58,4 +76,62 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testFusedControlFlowUnreachable() {
+        testFusedDCD("ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testFusedUnreachableBranch() {
+        testFusedDCD("UnreachableIfBranch");
+        testFusedDCD("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testFusedDeadAssignment() {
+        testFusedDCD("DeadAssignment");
+        testFusedDCD("Loops");
+    }
+
+    @Test
+    public void testBlockSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;block-solver:true",
+                "-a", "constprop=edge-refine:false;block-solver:true");
+    }
+
+    @Test
+    public void testParallelMethodAnalysis() {
+        // method analyses are run on the methods in parallel, and
+        // the results are stored into the IRs of the methods concurrently
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/dataflow/deadcode/",
+                "-m", "Loops", "-a", CFGBuilder.ID});
+        World.get().getClassHierarchy().applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .forEach(m -> Assert.assertNotNull(m.toString(),
+                        m.getIR().getResult(CFGBuilder.ID)));
+    }
+
+    @Test
+    public void testTransferCount() {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/dataflow/deadcode/",
+                "-m", "Loops", "-a", CFGBuilder.ID});
+        IR ir = World.get().getClassHierarchy().getClass("Loops")
+                .getDeclaredMethod("deadLoop").getIR();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        LiveVariableAnalysis livevar = new LiveVariableAnalysis(
+                new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+        livevar.analyze(ir);
+        int count = livevar.getLastTransferCount();
+        // every node but the exit is transferred once, and the nodes
+        // in the loop are transferred again after the back edge changes
+        Assert.assertTrue(count > cfg.getNumberOfNodes() - 1);
+        // the count of a method does not accumulate the previous ones
+        livevar.analyze(ir);
+        Assert.assertEquals(count, livevar.getLastTransferCount());
+        Assert.assertEquals(2L * count, livevar.getTransferCount());
+    }
 }
@@ -0,0 +1,402 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.util.AnalysisException;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link CPFact} which stores the lattice values of variables in an array
+ * indexed by {@link Var#getIndex()}. Each value is packed into a long:
+ * the high 32 bits hold the kind (UNDEF, NAC or constant) and the low
+ * 32 bits hold the constant, so that no {@link Value} objects are kept
+ * by this fact, and UNDEF is represented by 0 (the default array element).
+ * <p>
+ * Copies share the underlying array until one of them is modified
+ * (copy-on-write), thus copying a fact which does not change afterwards
+ * (e.g., the OUT fact of a statement which defines no variable) is cheap.
+ * <p>
+ * As variable indexes are only unique within a method, a fact is bound to
+ * the IR of the first variable added to it, and adding a variable of
+ * another method throws {@link AnalysisException}. This holds for the
+ * facts on an ICFG as well: the call and return edges build new facts
+ * for the variables of the callee and the caller respectively, so every
+ * fact only holds variables of the method of its node.
+ */
+public class ArrayCPFact extends CPFact {
+
+    private final Values values;
+
+    /**
+     * Creates an empty fact whose variables are resolved from the IR
+     * of the first variable added to this fact.
+     */
+    public ArrayCPFact() {
+        this(new Values((IR) null));
+    }
+
+    /**
+     * Creates an empty fact for the variables of given IR.
+     */
+    public ArrayCPFact(IR ir) {
+        this(new Values(ir));
+    }
+
+    private ArrayCPFact(Values values) {
+        super(values, false);
+        this.values = values;
+    }
+
+    @Override
+    public Value get(Var key) {
+        return unpack(values.getPacked(key.getIndex()));
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        return values.setPacked(key, pack(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = values.getPacked(key.getIndex());
+        values.setPacked(key, UNDEF);
+        return old == UNDEF ? null : unpack(old);
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof ArrayCPFact other) {
+            return values.copyFrom(other.values);
+        }
+        return super.copyFrom(fact);
+    }
+
+    /**
+     * Meets given fact into this fact without unpacking the values.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meetFrom(ArrayCPFact fact) {
+        return values.meetFrom(fact.values);
+    }
+
+    @Override
+    public ArrayCPFact copy() {
+        return new ArrayCPFact(values.copy());
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    // ---------- packed representation of values ----------
+
+    private static final long UNDEF = 0L;
+
+    private static final long NAC = 1L << 32;
+
+    private static final long CONSTANT = 2L << 32;
+
+    private static long pack(Value value) {
+        if (value.isUndef()) {
+            return UNDEF;
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return CONSTANT | (value.getConstant() & 0xFFFFFFFFL);
+        }
+    }
+
+    private static Value unpack(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        } else if (value == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.makeConstant((int) value);
+        }
+    }
+
+    /**
+     * Meets two packed values.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        } else if (v2 == UNDEF) {
+            return v1;
+        } else {
+            return NAC;
+        }
+    }
+
+    /**
+     * Array of packed values, which also serves as the map of
+     * {@link MapFact} for the operations that iterate the mappings,
+     * e.g., {@link MapFact#toString()}.
+     */
+    private static class Values extends AbstractMap<Var, Value> {
+
+        private static final long[] EMPTY = {};
+
+        /**
+         * IR of the variables in this map, which is used to
+         * resolve variables from indexes.
+         */
+        @Nullable
+        private IR ir;
+
+        private long[] array;
+
+        /**
+         * Whether {@link #array} may be shared with other maps.
+         */
+        private boolean shared;
+
+        /**
+         * Number of non-UNDEF values.
+         */
+        private int size;
+
+        private Values(@Nullable IR ir) {
+            this.ir = ir;
+            this.array = ir != null ? new long[ir.getVars().size()] : EMPTY;
+        }
+
+        private Values(Values other) {
+            this.ir = other.ir;
+            this.array = other.array;
+            this.size = other.size;
+            this.shared = other.shared = true;
+        }
+
+        private Values copy() {
+            return new Values(this);
+        }
+
+        private long getPacked(int index) {
+            return index < array.length ? array[index] : UNDEF;
+        }
+
+        private boolean setPacked(Var var, long value) {
+            int index = var.getIndex();
+            if (getPacked(index) == value) {
+                return false;
+            }
+            if (ir == null) {
+                ir = var.getMethod().getIR();
+            } else if (var.getMethod() != ir.getMethod()) {
+                throw new AnalysisException(String.format(
+                        "%s of %s cannot be added to the fact of %s",
+                        var, var.getMethod(), ir.getMethod()));
+            }
+            prepareWrite(index);
+            set(index, value);
+            return true;
+        }
+
+        /**
+         * Sets value at given index, which must be writable.
+         */
+        private void set(int index, long value) {
+            long old = array[index];
+            if (old == UNDEF) {
+                ++size;
+            } else if (value == UNDEF) {
+                --size;
+            }
+            array[index] = value;
+        }
+
+        /**
+         * Makes {@link #array} exclusively owned by this map and
+         * large enough to hold the value at given index.
+         */
+        private void prepareWrite(int index) {
+            if (index >= array.length) {
+                int length = ir != null ? ir.getVars().size() : 0;
+                array = Arrays.copyOf(array,
+                        Math.max(index + 1, Math.max(length, array.length * 2)));
+                shared = false;
+            } else if (shared) {
+                array = array.clone();
+                shared = false;
+            }
+        }
+
+        private boolean copyFrom(Values other) {
+            return merge(other, false);
+        }
+
+        private boolean meetFrom(Values other) {
+            return merge(other, true);
+        }
+
+        /**
+         * Merges the values of other map into this map, either by
+         * overwriting (if {@code meet} is false) or by meeting.
+         */
+        private boolean merge(Values other, boolean meet) {
+            if (ir != null && other.ir != null && ir != other.ir) {
+                throw new AnalysisException(String.format(
+                        "fact of %s cannot be merged into the fact of %s",
+                        other.ir.getMethod(), ir.getMethod()));
+            }
+            long[] otherArray = other.array;
+            boolean changed = false;
+            for (int i = 0; i < otherArray.length; ++i) {
+                long v = otherArray[i];
+                if (v == UNDEF) {
+                    continue;
+                }
+                long old = getPacked(i);
+                long result = meet ? meet(old, v) : v;
+                if (result != old) {
+                    if (!changed) {
+                        if (ir == null) {
+                            ir = other.ir;
+                        }
+                        changed = true;
+                    }
+                    prepareWrite(i);
+                    set(i, result);
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Var var && getPacked(var.getIndex()) != UNDEF;
+        }
+
+        @Override
+        public Value get(Object key) {
+            if (key instanceof Var var) {
+                long value = getPacked(var.getIndex());
+                return value == UNDEF ? null : unpack(value);
+            }
+            return null;
+        }
+
+        @Override
+        public void clear() {
+            if (shared) {
+                array = new long[array.length];
+                shared = false;
+            } else {
+                Arrays.fill(array, UNDEF);
+            }
+            size = 0;
+        }
+
+        @Override
+        public Set<Entry<Var, Value>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Var, Value>> iterator() {
+                    return new Iterator<>() {
+
+                        private int next = nextIndex(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < array.length;
+                        }
+
+                        @Override
+                        public Entry<Var, Value> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next;
+                            next = nextIndex(i + 1);
+                            return new SimpleImmutableEntry<>(
+                                    ir.getVar(i), unpack(array[i]));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private int nextIndex(int from) {
+            int i = from;
+            while (i < array.length && array[i] == UNDEF) {
+                ++i;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof Values other) {
+                if (size != other.size) {
+                    return false;
+                }
+                if (array == other.array) {
+                    return true;
+                }
+                int common = Math.min(array.length, other.array.length);
+                for (int i = 0; i < common; ++i) {
+                    if (array[i] != other.array[i]) {
+                        return false;
+                    }
+                }
+                // sizes are equal, so the remaining values must all be UNDEF
+                return true;
+            }
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            // hash code must follow the contract of Map.hashCode()
+            return super.hashCode();
+        }
+    }
+}
@@ -22,12 +22,18 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
@@ -38,6 +44,8 @@ import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
 
+import java.util.List;
+
 /**
  * Implementation of interprocedural constant propagation for int values.
  */
@@ -46,11 +54,39 @@ public class InterConstantPropagation extends
 
     public static final String ID = "inter-constprop";
 
+    /**
+     * Default maximum number of contexts per method in summary mode.
+     */
+    private static final int DEFAULT_CONTEXT_LIMIT = 8;
+
     private final ConstantPropagation cp;
 
+    /**
+     * Whether to solve the analysis by {@link SummaryBasedSolver}.
+     */
+    private final boolean summary;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        summary = getOptions().getBooleanOrDefault("summary", false);
+    }
+
+    @Override
+    public Object analyze() {
+        if (!summary) {
+            return super.analyze();
+        }
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        initialize();
+        CallGraph<Invoke, JMethod> callGraph =
+                World.get().getResult(CallGraphBuilder.ID);
+        Object limit = getOptions().get("summary-contexts");
+        DataflowResult<Stmt, CPFact> result = new SummaryBasedSolver(
+                this, icfg, callGraph,
+                limit != null ? (Integer) limit : DEFAULT_CONTEXT_LIMIT).solve();
+        finish();
+        return result;
     }
 
     @Override
@@ -76,37 +112,54 @@ public class InterConstantPropagation extends
 
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        // the effects of the call are handled by the edge transfers
+        return out.copyFrom(in);
     }
 
     @Override
     protected boolean transferNonCallNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        return cp.transferNode(stmt, in, out);
     }
 
     @Override
     protected CPFact transferNormalEdge(NormalEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        return out;
     }
 
     @Override
     protected CPFact transferCallToReturnEdge(CallToReturnEdge<Stmt> edge, CPFact out) {
-        // TODO - finish me
-        return null;
+        // the value of the LHS variable is passed by the return edges
+        Var lhs = ((Invoke) edge.getSource()).getResult();
+        if (lhs == null) {
+            return out;
+        }
+        CPFact result = out.copy();
+        result.remove(lhs);
+        return result;
     }
 
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
-        // TODO - finish me
-        return null;
+        InvokeExp invokeExp = ((Invoke) edge.getSource()).getInvokeExp();
+        List<Var> params = edge.getCallee().getIR().getParams();
+        CPFact result = newInitialFact();
+        for (int i = 0; i < params.size(); ++i) {
+            result.update(params.get(i), callSiteOut.get(invokeExp.getArg(i)));
+        }
+        return result;
     }
 
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
-        // TODO - finish me
-        return null;
+        CPFact result = newInitialFact();
+        Var lhs = ((Invoke) edge.getCallSite()).getResult();
+        if (lhs != null) {
+            Value value = Value.getUndef();
+            for (Var ret : edge.getReturnVars()) {
+                value = cp.meetValue(value, returnOut.get(ret));
+            }
+            result.update(lhs, value);
+        }
+        return result;
     }
 }
@@ -24,8 +24,18 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopoSorter;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -41,28 +51,181 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    /**
+     * Whether to schedule the nodes method by method,
+     * see {@link #doSolveByMethod()}.
+     */
+    private final boolean methodWorkList;
+
     private DataflowResult<Node, Fact> result;
 
     private Queue<Node> workList;
 
+    /**
+     * Entry nodes of the entry methods, which hold the boundary facts.
+     */
+    private Set<Node> boundaries;
+
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
-                ICFG<Method, Node> icfg) {
+                ICFG<Method, Node> icfg, boolean methodWorkList) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.methodWorkList = methodWorkList;
     }
 
     DataflowResult<Node, Fact> solve() {
         result = new DataflowResult<>();
         initialize();
-        doSolve();
+        if (methodWorkList) {
+            doSolveByMethod();
+        } else {
+            doSolve();
+        }
         return result;
     }
 
     private void initialize() {
-        // TODO - finish me
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        boundaries = icfg.entryMethods()
+                .map(icfg::getEntryOf)
+                .collect(Collectors.toSet());
+        boundaries.forEach(entry ->
+                result.setOutFact(entry, analysis.newBoundaryFact(entry)));
     }
 
     private void doSolve() {
-        // TODO - finish me
+        workList = new SetQueue<>();
+        for (Node node : icfg) {
+            if (!boundaries.contains(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (processNode(node)) {
+                workList.addAll(icfg.getSuccsOf(node));
+            }
+        }
+    }
+
+    /**
+     * Solves the analysis with a two-level work-list: the outer one
+     * holds methods in bottom-up (callee-first) topological order of
+     * the call graph, and the inner one holds the pending nodes of each
+     * method. Once a method is polled, its nodes are processed until
+     * the method stabilizes locally, and the nodes of other methods
+     * affected meanwhile (via call and return edges) are deferred until
+     * their methods are polled. This reduces the transfers of facts
+     * between methods and improves the locality of the solving.
+     */
+    private void doSolveByMethod() {
+        MethodWorkList methods = new MethodWorkList();
+        for (Node node : icfg) {
+            if (!boundaries.contains(node)) {
+                methods.add(node);
+            }
+        }
+        while (!methods.isEmpty()) {
+            Queue<Node> nodes = methods.pollMethod();
+            while (!nodes.isEmpty()) {
+                Node node = nodes.poll();
+                if (processNode(node)) {
+                    icfg.getSuccsOf(node).forEach(methods::add);
+                }
+            }
+        }
+    }
+
+    /**
+     * Meets the facts flowing into given node into its IN fact,
+     * and then applies the node transfer function.
+     *
+     * @return true if the OUT fact of the node changed, otherwise false.
+     */
+    private boolean processNode(Node node) {
+        Fact in = result.getInFact(node);
+        for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+            Fact predOut = result.getOutFact(inEdge.getSource());
+            analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+        }
+        return analysis.transferNode(node, in, result.getOutFact(node));
+    }
+
+    /**
+     * Two-level work-list used by {@link #doSolveByMethod()}.
+     */
+    private class MethodWorkList {
+
+        /**
+         * Methods in bottom-up topological order of the call graph.
+         */
+        private final List<Method> methods = new ArrayList<>();
+
+        /**
+         * Maps each method to its position in {@link #methods}.
+         */
+        private final Map<Method, Integer> orders = Maps.newMap();
+
+        /**
+         * Positions of the methods which have pending nodes,
+         * excluding the method being processed.
+         */
+        private final BitSet pending = new BitSet();
+
+        private final Map<Method, Queue<Node>> nodes = Maps.newMap();
+
+        /**
+         * The method being processed.
+         */
+        private Method current;
+
+        private MethodWorkList() {
+            SimpleGraph<Method> callGraph = new SimpleGraph<>();
+            for (Node node : icfg) {
+                Method method = icfg.getContainingMethodOf(node);
+                callGraph.addNode(method);
+                if (icfg.isCallSite(node)) {
+                    for (Method callee : icfg.getCalleesOf(node)) {
+                        callGraph.addEdge(method, callee);
+                    }
+                }
+            }
+            List<MergedNode<Method>> sccs = new TopoSorter<>(
+                    new MergedSCCGraph<>(callGraph), true).get();
+            for (MergedNode<Method> scc : sccs) {
+                for (Method method : scc.getNodes()) {
+                    orders.put(method, methods.size());
+                    methods.add(method);
+                }
+            }
+        }
+
+        private void add(Node node) {
+            Method method = icfg.getContainingMethodOf(node);
+            nodes.computeIfAbsent(method, m -> new SetQueue<>()).add(node);
+            if (method != current) {
+                pending.set(orders.get(method));
+            }
+        }
+
+        private boolean isEmpty() {
+            return pending.isEmpty();
+        }
+
+        /**
+         * Removes the first pending method from this work-list,
+         * and makes it the method being processed.
+         *
+         * @return the pending nodes of the method.
+         */
+        private Queue<Node> pollMethod() {
+            int i = pending.nextSetBit(0);
+            pending.clear(i);
+            current = methods.get(i);
+            return nodes.get(current);
+        }
     }
 }
@@ -0,0 +1,301 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Summary-based solver for {@link InterConstantPropagation}.
+ * <p>
+ * Instead of flowing facts through the ICFG, this solver analyzes each
+ * method under a context, i.e., the values of its parameters, and caches
+ * the resulting summary of the context, i.e., the values of its return
+ * variables. When a method is analyzed, each call site applies the summary
+ * of the callee under the arguments of the call site (via the call edge
+ * and return edge transfer functions of the analysis), so that callee
+ * bodies are never re-analyzed for known contexts.
+ * <p>
+ * Contexts are processed in bottom-up order of the strongly connected
+ * components of the call graph, so that the summaries of the callees are
+ * usually available when a caller is analyzed. The contexts in recursive
+ * components are re-analyzed until their summaries reach a fixed point.
+ * To guarantee termination, each method has at most {@link #contextLimit}
+ * contexts: once a method has {@code contextLimit - 1} contexts, the inputs
+ * of new contexts are replaced by NAC parameters, so that the last context
+ * of the method is the one of NAC.
+ * <p>
+ * After all summaries are stable, each context is analyzed once more to
+ * compute the facts of its statements, and the facts of a statement are
+ * the meet of its facts under all contexts of the containing method.
+ * Thus, the results are at least as precise as the ones of {@link InterSolver}.
+ */
+class SummaryBasedSolver {
+
+    private final InterConstantPropagation analysis;
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final int contextLimit;
+
+    /**
+     * Bottom-up rank of each method, i.e., callees in a different
+     * strongly connected component have lower ranks than their callers.
+     */
+    private final Map<JMethod, Integer> ranks = Maps.newMap();
+
+    private final Map<JMethod, Map<List<Value>, Context>> contexts = Maps.newMap();
+
+    private final Queue<Context> workList = new PriorityQueue<>(
+            Comparator.comparingInt((Context c) -> c.rank).thenComparingInt(c -> c.id));
+
+    private int contextCounter = 0;
+
+    SummaryBasedSolver(InterConstantPropagation analysis,
+                       ICFG<JMethod, Stmt> icfg,
+                       CallGraph<Invoke, JMethod> callGraph,
+                       int contextLimit) {
+        if (contextLimit < 1) {
+            throw new IllegalArgumentException(
+                    "Context limit must be positive, given: " + contextLimit);
+        }
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.contextLimit = contextLimit;
+        MergedSCCGraph<JMethod> sccGraph = new MergedSCCGraph<>(callGraph);
+        List<MergedNode<JMethod>> bottomUp = new TopoSorter<>(sccGraph, true).get();
+        for (int i = 0; i < bottomUp.size(); ++i) {
+            for (JMethod method : bottomUp.get(i).getNodes()) {
+                ranks.put(method, i);
+            }
+        }
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        icfg.entryMethods().forEach(method -> getContext(method,
+                analysis.newBoundaryFact(icfg.getEntryOf(method))));
+        while (!workList.isEmpty()) {
+            Context context = workList.poll();
+            context.inWorkList = false;
+            CPFact summary = analyze(context, null);
+            if (!summary.equals(context.summary)) {
+                context.summary = summary;
+                context.dependents.forEach(this::addToWorkList);
+            }
+        }
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        for (Stmt node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        contexts.values().forEach(byInput ->
+                byInput.values().forEach(context -> analyze(context, result)));
+        return result;
+    }
+
+    /**
+     * Analyzes the method of given context under the context.
+     *
+     * @param result if not null, the facts of the statements are met
+     *               into this result.
+     * @return the summary of the context.
+     */
+    private CPFact analyze(Context context, DataflowResult<Stmt, CPFact> result) {
+        JMethod method = context.method;
+        CFG<Stmt> cfg = method.getIR().getResult(CFGBuilder.ID);
+        Map<Stmt, CPFact> inFacts = Maps.newMap(cfg.getNumberOfNodes());
+        Map<Stmt, CPFact> outFacts = Maps.newMap(cfg.getNumberOfNodes());
+        for (Stmt node : cfg) {
+            inFacts.put(node, analysis.newInitialFact());
+            outFacts.put(node, analysis.newInitialFact());
+        }
+        Stmt entry = icfg.getEntryOf(method);
+        inFacts.put(entry, context.input.copy());
+        Queue<Stmt> nodes = new SetQueue<>();
+        cfg.forEach(nodes::add);
+        while (!nodes.isEmpty()) {
+            Stmt node = nodes.poll();
+            CPFact in = inFacts.get(node);
+            if (node != entry) {
+                for (ICFGEdge<Stmt> inEdge : icfg.getInEdgesOf(node)) {
+                    if (inEdge instanceof ReturnEdge<Stmt> returnEdge) {
+                        CPFact calleeSummary = getCalleeSummary(
+                                context, returnEdge, outFacts);
+                        if (calleeSummary != null) {
+                            analysis.meetInto(analysis.transferEdge(
+                                    returnEdge, calleeSummary), in);
+                        }
+                    } else if (!(inEdge instanceof CallEdge)) {
+                        analysis.meetInto(analysis.transferEdge(
+                                inEdge, outFacts.get(inEdge.getSource())), in);
+                    }
+                }
+            }
+            if (analysis.transferNode(node, in, outFacts.get(node))) {
+                for (ICFGEdge<Stmt> outEdge : icfg.getOutEdgesOf(node)) {
+                    // only follow the edges inside the method
+                    if (!(outEdge instanceof CallEdge) &&
+                            !(outEdge instanceof ReturnEdge)) {
+                        nodes.add(outEdge.getTarget());
+                    }
+                }
+            }
+        }
+        if (result != null) {
+            for (Stmt node : cfg) {
+                analysis.meetInto(inFacts.get(node), result.getInFact(node));
+                analysis.meetInto(outFacts.get(node), result.getOutFact(node));
+            }
+        }
+        CPFact exitOut = outFacts.get(icfg.getExitOf(method));
+        CPFact summary = analysis.newInitialFact();
+        for (Var ret : method.getIR().getReturnVars()) {
+            summary.update(ret, exitOut.get(ret));
+        }
+        return summary;
+    }
+
+    /**
+     * @return the summary of the callee (i.e., the source method of given
+     * return edge) under the arguments of the call site, or null if
+     * the summary has not been computed yet.
+     */
+    private CPFact getCalleeSummary(Context caller, ReturnEdge<Stmt> returnEdge,
+                                    Map<Stmt, CPFact> outFacts) {
+        Stmt callSite = returnEdge.getCallSite();
+        JMethod callee = icfg.getContainingMethodOf(returnEdge.getSource());
+        for (ICFGEdge<Stmt> edge : icfg.getOutEdgesOf(callSite)) {
+            if (edge instanceof CallEdge<Stmt> callEdge &&
+                    callEdge.getCallee().equals(callee)) {
+                CPFact input = analysis.transferEdge(callEdge, outFacts.get(callSite));
+                Context context = getContext(callee, input);
+                context.dependents.add(caller);
+                return context.summary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the context of given method and input, which is created
+     * and added to the work-list if it does not exist.
+     */
+    private Context getContext(JMethod method, CPFact input) {
+        Map<List<Value>, Context> byInput = contexts.computeIfAbsent(
+                method, m -> Maps.newMap());
+        List<Value> key = getKey(method, input);
+        Context context = byInput.get(key);
+        if (context == null) {
+            if (byInput.size() >= contextLimit - 1) {
+                // too many contexts, use parameters of NAC instead;
+                // the last slot is left for the context of NAC
+                input = analysis.newBoundaryFact(icfg.getEntryOf(method));
+                key = getKey(method, input);
+                context = byInput.get(key);
+            }
+            if (context == null) {
+                context = new Context(method, input,
+                        ranks.getOrDefault(method, 0), contextCounter++);
+                byInput.put(key, context);
+                addToWorkList(context);
+            }
+        }
+        return context;
+    }
+
+    private static List<Value> getKey(JMethod method, CPFact input) {
+        List<Var> params = method.getIR().getParams();
+        List<Value> key = new ArrayList<>(params.size());
+        for (Var param : params) {
+            key.add(input.get(param));
+        }
+        return key;
+    }
+
+    private void addToWorkList(Context context) {
+        if (!context.inWorkList) {
+            context.inWorkList = true;
+            workList.add(context);
+        }
+    }
+
+    /**
+     * A method analyzed under specific values of its parameters.
+     */
+    private static class Context {
+
+        private final JMethod method;
+
+        private final CPFact input;
+
+        private final int rank;
+
+        private final int id;
+
+        /**
+         * Values of the return variables of the method under this context,
+         * or null if this context has not been analyzed.
+         */
+        private CPFact summary;
+
+        /**
+         * Contexts whose analysis applied the summary of this context.
+         */
+        private final Set<Context> dependents = Sets.newHybridSet();
+
+        private boolean inWorkList;
+
+        private Context(JMethod method, CPFact input, int rank, int id) {
+            this.method = method;
+            this.input = input;
+            this.rank = rank;
+            this.id = id;
+        }
+    }
+}
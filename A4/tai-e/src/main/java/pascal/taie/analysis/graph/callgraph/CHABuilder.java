@@ -29,8 +29,12 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 
@@ -50,7 +54,20 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
-        // TODO - finish me
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                callGraph.getCallSitesIn(method).forEach(callSite -> {
+                    CallKind kind = CallGraphs.getCallKind(callSite);
+                    for (JMethod callee : resolve(callSite)) {
+                        callGraph.addEdge(new Edge<>(kind, callSite, callee));
+                        workList.add(callee);
+                    }
+                });
+            }
+        }
         return callGraph;
     }
 
@@ -58,8 +75,47 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * Resolves call targets (callees) of a call site via CHA.
      */
     private Set<JMethod> resolve(Invoke callSite) {
-        // TODO - finish me
-        return null;
+        Set<JMethod> targets = Sets.newSet();
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC -> {
+                JMethod target = declaringClass.getDeclaredMethod(subsignature);
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+            case SPECIAL -> {
+                JMethod target = dispatch(declaringClass, subsignature);
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                Queue<JClass> workList = new ArrayDeque<>();
+                Set<JClass> visited = Sets.newSet();
+                workList.add(declaringClass);
+                visited.add(declaringClass);
+                while (!workList.isEmpty()) {
+                    JClass jclass = workList.poll();
+                    JMethod target = dispatch(jclass, subsignature);
+                    if (target != null) {
+                        targets.add(target);
+                    }
+                    Collection<JClass> subclasses = jclass.isInterface() ?
+                            concat(hierarchy.getDirectSubinterfacesOf(jclass),
+                                    hierarchy.getDirectImplementorsOf(jclass)) :
+                            hierarchy.getDirectSubclassesOf(jclass);
+                    for (JClass subclass : subclasses) {
+                        if (visited.add(subclass)) {
+                            workList.add(subclass);
+                        }
+                    }
+                }
+            }
+        }
+        return targets;
     }
 
     /**
@@ -69,7 +125,20 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
         return null;
     }
+
+    private static Collection<JClass> concat(
+            Collection<JClass> c1, Collection<JClass> c2) {
+        List<JClass> result = new ArrayList<>(c1.size() + c2.size());
+        result.addAll(c1);
+        result.addAll(c2);
+        return result;
+    }
 }
@@ -38,6 +38,23 @@ public class InterCPTest {
         );
     }
 
+    /**
+     * Summary-based solving is more precise than the ICFG-based one for
+     * the methods called with different constant arguments, thus it is
+     * only compared with the expected results on the other cases.
+     */
+    void testSummary(String inputClass, String options) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;summary:true" + options,
+                "-a", "cg=algorithm:cha");
+    }
+
+    void testMethodWorkList(String inputClass) {
+        Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;method-worklist:true",
+                "-a", "cg=algorithm:cha");
+    }
+
     @Test
     public void testExample() {
         test("Example");
@@ -57,4 +74,24 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testSummary() {
+        testSummary("Example", "");
+        testSummary("Reference", "");
+    }
+
+    @Test
+    public void testSummaryContextLimit() {
+        // a single context per method, i.e., all parameters are NAC
+        testSummary("Fibonacci", ";summary-contexts:1");
+    }
+
+    @Test
+    public void testMethodWorkList() {
+        testMethodWorkList("Example");
+        testMethodWorkList("Reference");
+        testMethodWorkList("Fibonacci");
+        testMethodWorkList("MultiIntArgs");
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Offline variable substitution for pointer analysis, which finds the
+ * variables of a method that must have equal points-to sets before
+ * the analysis starts, by hash-based value numbering (HVN).
+ * <p>
+ * Within a method, the points-to set of a variable is the union of the
+ * objects created by the {@link New} statements, and the points-to sets
+ * of the variables copied by the {@link Copy} statements, which assign
+ * to the variable. The other sources of objects (parameters, invocation
+ * results, field/array loads, etc.) are unknown before the analysis, thus
+ * each variable assigned from such sources is given a unique label.
+ * Two variables which are reached by the same set of labels (allocation
+ * sites and unique labels) via copies must have equal points-to sets.
+ */
+class OfflineVarSubstitution {
+
+    private OfflineVarSubstitution() {
+    }
+
+    /**
+     * @return map from each substitutable variable of given IR to the
+     * variable that substitutes it. A variable whose points-to set is
+     * used by load/store/invoke statements is never substituted, as
+     * the solver needs to process such statements when its points-to
+     * set changes.
+     */
+    static Map<Var, Var> substitute(IR ir) {
+        List<Var> vars = ir.getVars();
+        int n = vars.size();
+        // labels of the variables, label i (< n) is the unique label
+        // of the i-th variable, and labels from n are allocation sites
+        BitSet[] labels = new BitSet[n];
+        List<List<Var>> copyTargets = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            labels[i] = new BitSet();
+            copyTargets.add(new ArrayList<>());
+        }
+        if (ir.getThis() != null) {
+            labels[ir.getThis().getIndex()].set(ir.getThis().getIndex());
+        }
+        for (Var param : ir.getParams()) {
+            labels[param.getIndex()].set(param.getIndex());
+        }
+        int allocSite = n;
+        for (Stmt stmt : ir) {
+            if (stmt instanceof Copy copy) {
+                copyTargets.get(copy.getRValue().getIndex()).add(copy.getLValue());
+            } else if (stmt instanceof New newStmt) {
+                labels[newStmt.getLValue().getIndex()].set(allocSite++);
+            } else if (stmt.getDef().isPresent()
+                    && stmt.getDef().get() instanceof Var var) {
+                labels[var.getIndex()].set(var.getIndex());
+            }
+        }
+        // propagate labels along copies until fixed point
+        Queue<Var> workList = new ArrayDeque<>(vars);
+        while (!workList.isEmpty()) {
+            Var source = workList.poll();
+            BitSet sourceLabels = labels[source.getIndex()];
+            for (Var target : copyTargets.get(source.getIndex())) {
+                BitSet targetLabels = labels[target.getIndex()];
+                int size = targetLabels.cardinality();
+                targetLabels.or(sourceLabels);
+                if (targetLabels.cardinality() != size) {
+                    workList.add(target);
+                }
+            }
+        }
+        // value numbering: group variables by their labels
+        Map<BitSet, Var> reps = Maps.newMap();
+        Map<Var, Var> substitutes = Maps.newMap();
+        for (Var var : vars) {
+            BitSet varLabels = labels[var.getIndex()];
+            if (!(var.getType() instanceof ReferenceType)
+                    || varLabels.isEmpty()) {
+                continue;
+            }
+            Var rep = reps.get(varLabels);
+            if (rep == null) {
+                reps.put(varLabels, var);
+            } else if (!isUsed(var)) {
+                substitutes.put(var, rep);
+            } else if (!isUsed(rep)) {
+                // prefer the variable used by statements as representative
+                reps.put(varLabels, var);
+                substitutes.replaceAll((v, r) -> r == rep ? var : r);
+                substitutes.put(rep, var);
+            }
+        }
+        return substitutes;
+    }
+
+    /**
+     * @return true if the points-to set of given variable is used by
+     * load/store/invoke statements.
+     */
+    private static boolean isUsed(Var var) {
+        return !var.getLoadFields().isEmpty()
+                || !var.getStoreFields().isEmpty()
+                || !var.getLoadArrays().isEmpty()
+                || !var.getStoreArrays().isEmpty()
+                || !var.getInvokes().isEmpty();
+    }
+}
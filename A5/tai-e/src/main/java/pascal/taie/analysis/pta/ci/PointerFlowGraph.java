@@ -25,17 +25,34 @@ package pascal.taie.analysis.pta.ci;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * The pointers on a cycle of the PFG have the same points-to set at
+ * the fixed point, thus this PFG can collapse such cycles by merging
+ * the pointers into one representative pointer (see {@link #collapseCycles}).
+ * The merged pointers share the points-to set of the representative,
+ * and their edges are redirected to the representative, so that the
+ * objects are propagated around the cycle only once.
+ * <p>
+ * A variable whose points-to set is used by load/store/invoke statements
+ * is never merged into another pointer, as the solver needs to process
+ * such statements when the points-to set of the variable changes.
  */
 class PointerFlowGraph {
 
@@ -69,6 +86,48 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from each merged pointer to its representative.
+     * Representatives are not in this map.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from each representative to the pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges which have been checked by {@link #collapseCycles}.
+     */
+    private final MultiMap<Pointer, Pointer> checkedEdges = Maps.newMultiMap();
+
+    /**
+     * Whether to merge the variables found by {@link OfflineVarSubstitution}.
+     */
+    private final boolean substituteVars;
+
+    /**
+     * Methods whose variables have been examined by offline variable
+     * substitution, which is performed when the first Var node of
+     * a method is created, i.e., before its statements are processed.
+     */
+    private final Set<JMethod> substitutedMethods = Sets.newSet();
+
+    /**
+     * Map from each substituted variable to its substitute.
+     */
+    private final Map<Var, Var> substitutes = Maps.newMap();
+
+    /**
+     * Number of Var nodes merged by offline variable substitution.
+     */
+    private int substitutedVars;
+
+    PointerFlowGraph(boolean substituteVars) {
+        this.substituteVars = substituteVars;
+    }
+
     /**
      * Returns all pointers in this PFG.
      */
@@ -80,11 +139,23 @@ class PointerFlowGraph {
      * @return the corresponding Var node for the given variable.
      */
     VarPtr getVarPtr(Var var) {
-        return varPtrs.computeIfAbsent(var, v -> {
-            VarPtr varPtr = new VarPtr(v);
+        VarPtr varPtr = varPtrs.get(var);
+        if (varPtr == null) {
+            JMethod method = var.getMethod();
+            if (substituteVars && substitutedMethods.add(method)) {
+                substitutes.putAll(OfflineVarSubstitution.substitute(method.getIR()));
+            }
+            varPtr = new VarPtr(var);
+            varPtrs.put(var, varPtr);
             pointers.add(varPtr);
-            return varPtr;
-        });
+            Var substitute = substitutes.get(var);
+            if (substitute != null) {
+                Pointer rep = getRep(getVarPtr(substitute));
+                merge(List.of(rep, varPtr));
+                ++substitutedVars;
+            }
+        }
+        return varPtr;
     }
 
     /**
@@ -123,18 +194,224 @@ class PointerFlowGraph {
 
     /**
      * Adds an edge (source -> target) to this PFG.
+     * The edge is redirected to the representatives of given pointers.
      *
      * @return true if this PFG changed as a result of the call,
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        Pointer s = getRep(source);
+        Pointer t = getRep(target);
+        return s != t && successors.put(s, t);
     }
 
     /**
-     * @return successors of given pointer in the PFG.
+     * @return successors of (the representative of) given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        Pointer rep = getRep(pointer);
+        if (!reps.isEmpty()) {
+            redirectSuccsOf(rep);
+        }
+        return successors.get(rep);
+    }
+
+    /**
+     * @return the representative of given pointer, i.e., the pointer
+     * itself if it has not been merged into another pointer.
+     */
+    Pointer getRep(Pointer pointer) {
+        return reps.getOrDefault(pointer, pointer);
+    }
+
+    /**
+     * @return the number of Var nodes merged by offline variable substitution.
+     */
+    int getNumberOfSubstitutedVars() {
+        return substitutedVars;
+    }
+
+    /**
+     * @return the number of pointers merged into other pointers.
+     */
+    int getNumberOfMergedPointers() {
+        return reps.size();
+    }
+
+    /**
+     * Lazy cycle detection: an edge whose source and target have
+     * equal points-to sets is likely on a cycle, thus for the first
+     * such out-edge of given pointer (each edge is checked once),
+     * finds the cycles reachable from the edge and collapses them.
+     * <p>
+     * The successors of the pointers merged into a representative may
+     * miss the objects of the other merged pointers, thus the caller
+     * should propagate the points-to set of each returned representative
+     * to its successors.
+     *
+     * @return the representatives of the pointers merged by this call.
+     */
+    List<Pointer> collapseCycles(Pointer pointer) {
+        Pointer rep = getRep(pointer);
+        PointsToSet pts = rep.getPointsToSet();
+        for (Pointer succ : getSuccsOf(rep)) {
+            if (!checkedEdges.contains(rep, succ)
+                    && equals(pts, succ.getPointsToSet())) {
+                checkedEdges.put(rep, succ);
+                return collapseSCCs(succ);
+            }
+        }
+        return List.of();
+    }
+
+    private static boolean equals(PointsToSet pts1, PointsToSet pts2) {
+        if (pts1 == pts2) {
+            return true;
+        }
+        if (pts1.size() != pts2.size()) {
+            return false;
+        }
+        for (Obj obj : pts1) {
+            if (!pts2.contains(obj)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the strongly connected components reachable from given
+     * pointer by iterative Tarjan's algorithm, and merges the mergeable
+     * pointers in each component.
+     */
+    private List<Pointer> collapseSCCs(Pointer start) {
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lows = Maps.newMap();
+        Deque<Pointer> sccStack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> dfsStack = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> succStack = new ArrayDeque<>();
+        List<Pointer> merged = new ArrayList<>();
+        visit(start, indexes, lows, sccStack, onStack, dfsStack, succStack);
+        while (!dfsStack.isEmpty()) {
+            Pointer node = dfsStack.peek();
+            Iterator<Pointer> it = succStack.peek();
+            if (it.hasNext()) {
+                Pointer succ = getRep(it.next());
+                if (!indexes.containsKey(succ)) {
+                    visit(succ, indexes, lows, sccStack, onStack, dfsStack, succStack);
+                } else if (onStack.contains(succ)) {
+                    lows.put(node, Math.min(lows.get(node), indexes.get(succ)));
+                }
+            } else {
+                dfsStack.pop();
+                succStack.pop();
+                if (!dfsStack.isEmpty()) {
+                    Pointer parent = dfsStack.peek();
+                    lows.put(parent, Math.min(lows.get(parent), lows.get(node)));
+                }
+                if (lows.get(node).equals(indexes.get(node))) {
+                    List<Pointer> scc = new ArrayList<>();
+                    Pointer p;
+                    do {
+                        p = sccStack.pop();
+                        onStack.remove(p);
+                        if (isMergeable(p) && !reps.containsKey(p)) {
+                            scc.add(p);
+                        }
+                    } while (p != node);
+                    if (scc.size() > 1) {
+                        merge(scc);
+                        merged.add(scc.get(0));
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void visit(Pointer node, Map<Pointer, Integer> indexes,
+                       Map<Pointer, Integer> lows, Deque<Pointer> sccStack,
+                       Set<Pointer> onStack, Deque<Pointer> dfsStack,
+                       Deque<Iterator<Pointer>> succStack) {
+        int index = indexes.size();
+        indexes.put(node, index);
+        lows.put(node, index);
+        sccStack.push(node);
+        onStack.add(node);
+        dfsStack.push(node);
+        // copy the successors as they may be redirected during the search
+        succStack.push(List.copyOf(getSuccsOf(node)).iterator());
+    }
+
+    /**
+     * @return true if given pointer can be merged into other pointers.
+     */
+    private static boolean isMergeable(Pointer pointer) {
+        if (pointer instanceof VarPtr varPtr) {
+            Var var = varPtr.getVar();
+            return var.getLoadFields().isEmpty()
+                    && var.getStoreFields().isEmpty()
+                    && var.getLoadArrays().isEmpty()
+                    && var.getStoreArrays().isEmpty()
+                    && var.getInvokes().isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * Merges given pointers into the first one.
+     */
+    private void merge(List<Pointer> pointers) {
+        Pointer rep = pointers.get(0);
+        PointsToSet pts = rep.getPointsToSet();
+        for (int i = 1; i < pointers.size(); ++i) {
+            Pointer pointer = pointers.get(i);
+            for (Obj obj : pointer.getPointsToSet()) {
+                pts.addObject(obj);
+            }
+            List<Pointer> merged = new ArrayList<>(members.get(pointer));
+            merged.add(pointer);
+            members.removeAll(pointer);
+            for (Pointer m : merged) {
+                reps.put(m, rep);
+                members.put(rep, m);
+                m.setPointsToSet(pts);
+            }
+            for (Pointer succ : successors.get(pointer)) {
+                successors.put(rep, succ);
+            }
+            successors.removeAll(pointer);
+            for (Pointer succ : checkedEdges.get(pointer)) {
+                checkedEdges.put(rep, succ);
+            }
+            checkedEdges.removeAll(pointer);
+        }
+        redirectSuccsOf(rep);
+    }
+
+    /**
+     * Redirects the out-edges of given representative whose targets
+     * have been merged into other pointers, and removes self-loops.
+     */
+    private void redirectSuccsOf(Pointer rep) {
+        List<Pointer> merged = null;
+        for (Pointer succ : successors.get(rep)) {
+            if (succ == rep || reps.containsKey(succ)) {
+                if (merged == null) {
+                    merged = new ArrayList<>();
+                }
+                merged.add(succ);
+            }
+        }
+        if (merged != null) {
+            for (Pointer succ : merged) {
+                successors.remove(rep, succ);
+                Pointer target = getRep(succ);
+                if (target != rep) {
+                    successors.put(rep, target);
+                }
+            }
+        }
     }
 }
@@ -60,6 +60,23 @@ class PointsToSet implements Iterable<Obj> {
         return set.add(obj);
     }
 
+    /**
+     * Adds all objects in given pts to this set, and collects the objects
+     * which are newly added to this set, in one pass over given pts.
+     *
+     * @return a new points-to set of the objects in given pts
+     * that were not in this set before the call.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = new PointsToSet();
+        for (Obj obj : pts.set) {
+            if (set.add(obj)) {
+                diff.set.add(obj);
+            }
+        }
+        return diff;
+    }
+
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
@@ -31,6 +31,7 @@ import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -53,8 +54,15 @@ class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
+    /**
+     * Whether to collapse the cycles of the PFG during propagation.
+     */
+    private final boolean collapseCycles;
+
     private DefaultCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -65,8 +73,10 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
+        this.collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
     }
 
     /**
@@ -75,6 +85,15 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        if (options.getBooleanOrDefault("substitute-vars", false)) {
+            logger.info("{} variables are merged by offline variable substitution",
+                    pointerFlowGraph.getNumberOfSubstitutedVars());
+        }
+        if (collapseCycles) {
+            logger.info("{} pointers are merged by cycle collapsing",
+                    pointerFlowGraph.getNumberOfMergedPointers()
+                            - pointerFlowGraph.getNumberOfSubstitutedVars());
+        }
     }
 
     /**
@@ -82,7 +101,8 @@ class Solver {
      */
     private void initialize() {
         workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        pointerFlowGraph = new PointerFlowGraph(
+                options.getBooleanOrDefault("substitute-vars", false));
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
@@ -96,29 +116,107 @@ class Solver {
      * Processes new reachable method.
      */
     private void addReachable(JMethod method) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(method)) {
+            method.getIR().forEach(s -> s.accept(stmtProcessor));
+        }
     }
 
     /**
      * Processes statements in new reachable methods.
      */
     private class StmtProcessor implements StmtVisitor<Void> {
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+
+        @Override
+        public Void visit(New stmt) {
+            workList.addEntry(pointerFlowGraph.getVarPtr(stmt.getLValue()),
+                    new PointsToSet(heapModel.getObj(stmt)));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                    pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(pointerFlowGraph.getStaticField(
+                                stmt.getFieldRef().resolve()),
+                        pointerFlowGraph.getVarPtr(stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(stmt.getRValue()),
+                        pointerFlowGraph.getStaticField(
+                                stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee != null) {
+                    processCallEdge(stmt, callee);
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        while (!workList.isEmpty()) {
+            WorkList.Entry entry = workList.pollEntry();
+            Pointer pointer = entry.pointer();
+            PointsToSet delta = propagate(pointer, entry.pointsToSet());
+            if (pointer instanceof VarPtr varPtr && !delta.isEmpty()) {
+                Var var = varPtr.getVar();
+                for (Obj obj : delta) {
+                    for (StoreField store : var.getStoreFields()) {
+                        addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                                pointerFlowGraph.getInstanceField(
+                                        obj, store.getFieldRef().resolve()));
+                    }
+                    for (LoadField load : var.getLoadFields()) {
+                        addPFGEdge(pointerFlowGraph.getInstanceField(
+                                        obj, load.getFieldRef().resolve()),
+                                pointerFlowGraph.getVarPtr(load.getLValue()));
+                    }
+                    for (StoreArray store : var.getStoreArrays()) {
+                        addPFGEdge(pointerFlowGraph.getVarPtr(store.getRValue()),
+                                pointerFlowGraph.getArrayIndex(obj));
+                    }
+                    for (LoadArray load : var.getLoadArrays()) {
+                        addPFGEdge(pointerFlowGraph.getArrayIndex(obj),
+                                pointerFlowGraph.getVarPtr(load.getLValue()));
+                    }
+                    processCall(var, obj);
+                }
+            }
+        }
     }
 
     /**
@@ -126,8 +224,21 @@ class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet diff = pointer.getPointsToSet().addAllDiff(pointsToSet);
+        if (!diff.isEmpty()) {
+            if (collapseCycles) {
+                for (Pointer rep : pointerFlowGraph.collapseCycles(pointer)) {
+                    PointsToSet pts = rep.getPointsToSet();
+                    for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+                        workList.addEntry(succ, pts);
+                    }
+                }
+            }
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+            }
+        }
+        return diff;
     }
 
     /**
@@ -137,7 +248,38 @@ class Solver {
      * @param recv a new discovered object pointed by the variable.
      */
     private void processCall(Var var, Obj recv) {
-        // TODO - finish me
+        for (Invoke callSite : var.getInvokes()) {
+            JMethod callee = resolveCallee(recv, callSite);
+            if (callee == null) {
+                continue;
+            }
+            workList.addEntry(pointerFlowGraph.getVarPtr(callee.getIR().getThis()),
+                    new PointsToSet(recv));
+            processCallEdge(callSite, callee);
+        }
+    }
+
+    /**
+     * Adds a call edge from given call site to given callee, and if the edge
+     * is new, adds the PFG edges for the arguments and return values.
+     */
+    private void processCallEdge(Invoke callSite, JMethod callee) {
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        if (callGraph.addEdge(new Edge<>(kind, callSite, callee))) {
+            addReachable(callee);
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                addPFGEdge(pointerFlowGraph.getVarPtr(invokeExp.getArg(i)),
+                        pointerFlowGraph.getVarPtr(callee.getIR().getParam(i)));
+            }
+            Var result = callSite.getResult();
+            if (result != null) {
+                VarPtr resultPtr = pointerFlowGraph.getVarPtr(result);
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(pointerFlowGraph.getVarPtr(ret), resultPtr);
+                }
+            }
+        }
     }
 
     /**
@@ -78,4 +78,20 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testCollapseCycles() {
+        Tests.testCIPTA(DIR, "Assign2", "collapse-cycles:true");
+        Tests.testCIPTA(DIR, "Call", "collapse-cycles:true");
+    }
+
+    @Test
+    public void testSubstituteVars() {
+        for (String main : new String[]{"Example", "Assign", "Assign2",
+                "StoreLoad", "Call", "InstanceField", "MergeParam"}) {
+            Tests.testCIPTA(DIR, main, "substitute-vars:true");
+        }
+        Tests.testCIPTA(DIR, "Assign2",
+                "substitute-vars:true", "collapse-cycles:true");
+    }
 }
@@ -40,6 +40,12 @@ import java.util.stream.Stream;
 
 /**
  * Represents context-sensitive call graph.
+ * <p>
+ * This call graph can be built by multiple threads of the solver:
+ * the entry and reachable methods are added under the lock of this
+ * call graph, and each edge is added under the locks of its call site
+ * and callee, so that adding edges of different call sites does not
+ * contend for a lock.
  */
 public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
@@ -52,7 +58,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     /**
      * Adds an entry method to this call graph.
      */
-    public void addEntryMethod(CSMethod entryMethod) {
+    public synchronized void addEntryMethod(CSMethod entryMethod) {
         entryMethods.add(entryMethod);
     }
 
@@ -62,7 +68,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * @return true if this call graph changed as a result of the call,
      * otherwise false.
      */
-    public boolean addReachableMethod(CSMethod csMethod) {
+    public synchronized boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
             callSitesIn(csMethod).forEach(csCallSite ->
                     csCallSite.setContainer(csMethod));
@@ -80,12 +86,18 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * otherwise false.
      */
     public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
-        if (edge.getCallSite().addEdge(edge)) {
-            edge.getCallee().addEdge(edge);
-            return true;
-        } else {
-            return false;
+        CSCallSite csCallSite = edge.getCallSite();
+        boolean added;
+        synchronized (csCallSite) {
+            added = csCallSite.addEdge(edge);
+        }
+        if (added) {
+            CSMethod callee = edge.getCallee();
+            synchronized (callee) {
+                callee.addEdge(edge);
+            }
         }
+        return added;
     }
 
     @Override
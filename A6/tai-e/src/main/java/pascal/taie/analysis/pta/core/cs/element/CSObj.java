@@ -24,14 +24,21 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.Indexable;
 
 /**
  * Represents context-sensitive objects.
  */
-public class CSObj extends AbstractCSElement {
+public class CSObj extends AbstractCSElement implements Indexable {
 
     private final Obj obj;
 
+    /**
+     * Dense index of this object, which is assigned by {@link CSObjIndexer}
+     * on demand, or -1 if it has not been assigned.
+     */
+    volatile int index = -1;
+
     CSObj(Obj obj, Context context) {
         super(context);
         this.obj = obj;
@@ -44,6 +51,15 @@ public class CSObj extends AbstractCSElement {
         return obj;
     }
 
+    /**
+     * @return the index of this object, or -1 if it has not been indexed
+     * by a {@link CSObjIndexer}.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
     @Override
     public String toString() {
         return context + ":" + obj;
@@ -0,0 +1,284 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link CSManager} which looks up elements by dense indexes instead of
+ * nested hash maps, so that looking up an existing element does not
+ * allocate any objects:
+ * <ul>
+ *     <li>the elements of each context (variables, objects, call sites
+ *     and methods) are kept in compact open-addressing tables, which are
+ *     stored in an array indexed by the index of the (interned) context;</li>
+ *     <li>the instance fields of each object are kept in a table, and
+ *     the array index of each object is kept in an array, both indexed by
+ *     the index of the object assigned by given {@link CSObjIndexer}.</li>
+ * </ul>
+ * The contexts are interned as {@link TrieContext}s, which is a no-op
+ * for the contexts made by the context selectors.
+ * <p>
+ * This manager is not thread-safe, see {@link ConcurrentCSManager}.
+ */
+public class IndexedCSManager implements CSManager {
+
+    private final CSObjIndexer objIndexer;
+
+    /**
+     * Elements of each context, indexed by context index. The indexes are
+     * restarted when {@link pascal.taie.World} is reset (see
+     * {@link TrieContext#reset()}), thus the length of this array is
+     * bounded by the number of contexts created in the current world.
+     */
+    private ContextElements[] contextElements = new ContextElements[64];
+
+    private final ElementTable<JField, StaticField> staticFields = new ElementTable<>();
+
+    /**
+     * Instance fields of each object, indexed by object index.
+     */
+    private FieldTable[] instanceFields = new FieldTable[64];
+
+    /**
+     * Array index of each object, indexed by object index.
+     */
+    private ArrayIndex[] arrayIndexes = new ArrayIndex[64];
+
+    // collections of all elements, which are only updated
+    // when new elements are created
+
+    private final MultiMap<Var, CSVar> csVarsOf = Maps.newMultiMap();
+
+    private final List<CSVar> csVars = new ArrayList<>();
+
+    private final List<CSObj> csObjs = new ArrayList<>();
+
+    private final List<StaticField> staticFieldList = new ArrayList<>();
+
+    private final List<InstanceField> instanceFieldList = new ArrayList<>();
+
+    private final List<ArrayIndex> arrayIndexList = new ArrayList<>();
+
+    /**
+     * @param objIndexer indexer of the context-sensitive objects, which
+     *                   must be the one used by other components of the same
+     *                   analysis, e.g., the bitmap-based points-to sets.
+     */
+    public IndexedCSManager(CSObjIndexer objIndexer) {
+        this.objIndexer = objIndexer;
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        ContextElements elems = getContextElements(context);
+        CSVar csVar = elems.vars.get(var);
+        if (csVar == null) {
+            csVar = new CSVar(var, elems.context);
+            csVar.setPointsToSet(PointsToSetFactory.make());
+            elems.vars.put(var, csVar);
+            csVarsOf.put(var, csVar);
+            csVars.add(csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        ContextElements elems = getContextElements(heapContext);
+        CSObj csObj = elems.objs.get(obj);
+        if (csObj == null) {
+            csObj = new CSObj(obj, elems.context);
+            objIndexer.getIndex(csObj);
+            elems.objs.put(obj, csObj);
+            csObjs.add(csObj);
+        }
+        return csObj;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        ContextElements elems = getContextElements(context);
+        CSCallSite csCallSite = elems.callSites.get(callSite);
+        if (csCallSite == null) {
+            csCallSite = new CSCallSite(callSite, elems.context);
+            elems.callSites.put(callSite, csCallSite);
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        ContextElements elems = getContextElements(context);
+        CSMethod csMethod = elems.methods.get(method);
+        if (csMethod == null) {
+            csMethod = new CSMethod(method, elems.context);
+            elems.methods.put(method, csMethod);
+        }
+        return csMethod;
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        StaticField staticField = staticFields.get(field);
+        if (staticField == null) {
+            staticField = new StaticField(field);
+            staticField.setPointsToSet(PointsToSetFactory.make());
+            staticFields.put(field, staticField);
+            staticFieldList.add(staticField);
+        }
+        return staticField;
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int index = objIndexer.getIndex(base);
+        if (index >= instanceFields.length) {
+            instanceFields = Arrays.copyOf(instanceFields,
+                    Math.max(index + 1, instanceFields.length * 2));
+        }
+        FieldTable fields = instanceFields[index];
+        if (fields == null) {
+            fields = instanceFields[index] = new FieldTable();
+        }
+        InstanceField instanceField = fields.get(field);
+        if (instanceField == null) {
+            instanceField = new InstanceField(base, field);
+            instanceField.setPointsToSet(PointsToSetFactory.make());
+            fields.put(field, instanceField);
+            instanceFieldList.add(instanceField);
+        }
+        return instanceField;
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = objIndexer.getIndex(array);
+        if (index >= arrayIndexes.length) {
+            arrayIndexes = Arrays.copyOf(arrayIndexes,
+                    Math.max(index + 1, arrayIndexes.length * 2));
+        }
+        ArrayIndex arrayIndex = arrayIndexes[index];
+        if (arrayIndex == null) {
+            arrayIndex = arrayIndexes[index] = new ArrayIndex(array);
+            arrayIndex.setPointsToSet(PointsToSetFactory.make());
+            arrayIndexList.add(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return csVarsOf.keySet();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return csVarsOf.get(var);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(csVars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(csObjs);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableList(staticFieldList);
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(instanceFieldList);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(arrayIndexList);
+    }
+
+    /**
+     * @return the elements of given context, which are created
+     * if the context is first seen.
+     */
+    private ContextElements getContextElements(Context context) {
+        TrieContext trieContext = TrieContext.intern(context);
+        int index = trieContext.getIndex();
+        if (index >= contextElements.length) {
+            contextElements = Arrays.copyOf(contextElements,
+                    Math.max(index + 1, contextElements.length * 2));
+        }
+        ContextElements elems = contextElements[index];
+        if (elems == null) {
+            elems = contextElements[index] = new ContextElements(trieContext);
+        }
+        return elems;
+    }
+
+    /**
+     * Instance fields of an object. This class has no type parameters,
+     * so that the tables can be kept in an array.
+     */
+    private static class FieldTable extends ElementTable<JField, InstanceField> {
+    }
+
+    /**
+     * Elements of a context.
+     */
+    private static class ContextElements {
+
+        private final TrieContext context;
+
+        private final ElementTable<Var, CSVar> vars = new ElementTable<>();
+
+        private final ElementTable<Obj, CSObj> objs = new ElementTable<>();
+
+        private final ElementTable<Invoke, CSCallSite> callSites = new ElementTable<>();
+
+        private final ElementTable<JMethod, CSMethod> methods = new ElementTable<>();
+
+        private ContextElements(TrieContext context) {
+            this.context = context;
+        }
+    }
+}
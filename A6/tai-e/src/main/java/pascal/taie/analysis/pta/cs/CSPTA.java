@@ -22,25 +22,38 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveSelector;
+import pascal.taie.analysis.pta.core.cs.selector.Zipper;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Context-sensitive pointer analysis.
  */
 public class CSPTA extends ProgramAnalysis {
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public static final String ID = "cspta";
 
     public CSPTA(AnalysisConfig config) {
@@ -50,15 +63,89 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
+        HeapModel heapModel = new AllocationSiteBasedModel(options);
+        String cs = options.getString("cs");
+        ContextSelector selector = switch (cs) {
+            case "scaler" -> getScalerSelector(options, heapModel);
+            case "zipper" -> getZipperSelector(options, heapModel);
+            default -> getContextSelector(cs);
+        };
+        Solver solver = new Solver(options, heapModel, selector);
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
         ResultProcessor.process(options, result);
         return result;
     }
 
+    /**
+     * Runs a context-insensitive pre-analysis, and selects context
+     * sensitivity variant for each method by {@link Scaler} with respect
+     * to the pre-analysis result. The total scalability threshold of
+     * Scaler can be given by option "scaler-tst".
+     *
+     * @return the selector which applies the selected variant to each method.
+     */
+    private static ContextSelector getScalerSelector(
+            AnalysisOptions options, HeapModel heapModel) {
+        PointerAnalysisResult preResult = runPreAnalysis(options, heapModel);
+        Object tst = options.get("scaler-tst");
+        Scaler scaler = tst != null
+                ? new Scaler(preResult, ((Number) tst).longValue())
+                : new Scaler(preResult);
+        Map<String, ContextSelector> variants = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap();
+        scaler.selectContext().forEach((method, variant) ->
+                selectors.put(method, variants.computeIfAbsent(
+                        variant, CSPTA::getContextSelector)));
+        return new SelectiveSelector(selectors, new CISelector());
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, and selects precision-critical
+     * methods by {@link Zipper} with respect to the pre-analysis result.
+     * The precision-critical methods are analyzed with the context
+     * sensitivity variant given by option "zipper-cs" (2-obj by default),
+     * and other methods are analyzed context-insensitively.
+     */
+    private static ContextSelector getZipperSelector(
+            AnalysisOptions options, HeapModel heapModel) {
+        PointerAnalysisResult preResult = runPreAnalysis(options, heapModel);
+        Set<JMethod> pcms = new Zipper(preResult).selectPrecisionCriticalMethods();
+        logger.info("Zipper selects {} precision-critical methods out of {}",
+                pcms.size(), preResult.getCallGraph().getNumberOfMethods());
+        Object variant = options.get("zipper-cs");
+        ContextSelector selector = getContextSelector(
+                variant != null ? (String) variant : "2-obj");
+        Map<JMethod, ContextSelector> selectors = Maps.newMap(pcms.size());
+        pcms.forEach(method -> selectors.put(method, selector));
+        return new SelectiveSelector(selectors, new CISelector());
+    }
+
+    private static PointerAnalysisResult runPreAnalysis(
+            AnalysisOptions options, HeapModel heapModel) {
+        Solver preSolver = new Solver(getPreAnalysisOptions(options),
+                heapModel, new CISelector());
+        preSolver.solve();
+        return preSolver.getResult();
+    }
+
+    /**
+     * @return the options of the pre-analysis, which only keep the options
+     * of the data structures of the solver. Other options, e.g., the ones of
+     * taint analysis and parallel solving, do not apply to the pre-analysis,
+     * which must compute a whole-program context-insensitive result.
+     */
+    private static AnalysisOptions getPreAnalysisOptions(AnalysisOptions options) {
+        Map<String, Object> preOptions = Maps.newMap();
+        for (String key : List.of("bitmap-pts", "indexed-cs-manager", "collapse-cycles")) {
+            Object value = options.get(key);
+            if (value != null) {
+                preOptions.put(key, value);
+            }
+        }
+        return new AnalysisOptions(preOptions);
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
@@ -24,37 +24,247 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * A sequential work list keeps at most one pending entry for each
+ * pointer: the points-to set added for a pending pointer is merged into
+ * its pending entry, so that the pointer is propagated once for all the
+ * merged objects. Pending pointers are polled in the order they were
+ * added to this work list, i.e., a pointer added after it was processed
+ * waits for all other pending pointers, thus the least recently processed
+ * pointer goes first.
+ * <p>
+ * A concurrent work list simply queues the entries, as its entries
+ * may be polled and processed by multiple threads at the same time.
+ * A thread which finds the work list empty waits (instead of spinning)
+ * until other threads add new entries, or finish all entries.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Pending pointers in the order they should be processed,
+     * only used by sequential work lists.
+     */
+    private final Queue<Pointer> pointers;
+
+    /**
+     * Pending points-to set of each pending pointer,
+     * only used by sequential work lists.
+     */
+    private final Map<Pointer, PointsToSet> deltas;
+
+    /**
+     * Pending pointers whose points-to sets were created by this work list.
+     * The other pending points-to sets may be shared with the caller
+     * (e.g., the points-to set of a pointer), and must be copied before
+     * other points-to sets are merged into them.
+     */
+    private final Set<Pointer> owned;
+
+    /**
+     * Entries of concurrent work lists.
+     */
+    private final Queue<Entry> entries;
+
+    /**
+     * Number of entries which are added but not finished yet,
+     * only used by concurrent work lists.
+     */
+    private final AtomicInteger unfinished;
 
     /**
-     * Adds an entry to the work list.
+     * Lock of the condition below, only used by concurrent work lists.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Condition on which the idle threads wait for new entries,
+     * or for all entries to be finished.
+     */
+    private final Condition changed;
+
+    /**
+     * Number of threads waiting on {@link #changed}, which is checked
+     * before signaling the condition, so that adding and finishing
+     * entries do not lock when no thread is waiting.
+     */
+    private final AtomicInteger waiting;
+
+    /**
+     * Number of entries which are merged into pending entries.
+     */
+    private int coalesced;
+
+    /**
+     * Number of entries which are polled from this work list.
+     */
+    private final AtomicInteger processed = new AtomicInteger();
+
+    WorkList() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent whether the work list is accessed by multiple threads.
+     *                   If so, the entries are retrieved by
+     *                   {@link #takeEntry()}, and each of them must be
+     *                   finished by {@link #finishEntry()} after it is processed.
+     */
+    WorkList(boolean concurrent) {
+        if (concurrent) {
+            pointers = null;
+            deltas = null;
+            owned = null;
+            entries = new ConcurrentLinkedQueue<>();
+            unfinished = new AtomicInteger();
+            lock = new ReentrantLock();
+            changed = lock.newCondition();
+            waiting = new AtomicInteger();
+        } else {
+            pointers = new ArrayDeque<>();
+            deltas = Maps.newMap();
+            owned = Sets.newSet();
+            entries = null;
+            unfinished = null;
+            lock = null;
+            changed = null;
+            waiting = null;
+        }
+    }
+
+    /**
+     * Adds an entry to the work list. If the pointer is pending in
+     * a sequential work list, given points-to set is merged into
+     * the pending entry of the pointer.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (unfinished != null) {
+            // counts the entry before it becomes visible to other threads,
+            // so that the count never drops to zero while work remains
+            unfinished.incrementAndGet();
+            entries.add(new Entry(pointer, pointsToSet));
+            if (waiting.get() > 0) {
+                signal(false);
+            }
+            return;
+        }
+        PointsToSet delta = deltas.get(pointer);
+        if (delta == null) {
+            deltas.put(pointer, pointsToSet);
+            pointers.add(pointer);
+        } else {
+            ++coalesced;
+            if (owned.add(pointer)) {
+                PointsToSet copy = PointsToSetFactory.make();
+                copy.addAll(delta);
+                deltas.put(pointer, copy);
+                delta = copy;
+            }
+            delta.addAll(pointsToSet);
+        }
     }
 
     /**
-     * Retrieves and removes an entry from this queue, or returns null
-     * if this work list is empty.
+     * Retrieves and removes an entry from this sequential work list,
+     * or returns null if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        owned.remove(pointer);
+        processed.incrementAndGet();
+        return new Entry(pointer, deltas.remove(pointer));
+    }
+
+    /**
+     * Retrieves and removes an entry from this concurrent work list,
+     * waiting if necessary until other threads add new entries.
+     *
+     * @return the entry, or null if all entries added to this work list
+     * have been finished, so that no more entries will be added.
+     */
+    Entry takeEntry() throws InterruptedException {
+        Entry entry = entries.poll();
+        if (entry == null) {
+            lock.lock();
+            waiting.incrementAndGet();
+            try {
+                // the entries and the count are checked after announcing
+                // the waiting, so that no signal is missed
+                while ((entry = entries.poll()) == null) {
+                    if (unfinished.get() == 0) {
+                        return null;
+                    }
+                    changed.await();
+                }
+            } finally {
+                waiting.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        processed.incrementAndGet();
+        return entry;
     }
 
     /**
-     * @return true if the work list is empty, otherwise false.
+     * @return true if the sequential work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pointers.isEmpty();
+    }
+
+    /**
+     * Marks an entry taken from a concurrent work list as processed.
+     */
+    void finishEntry() {
+        if (unfinished.decrementAndGet() == 0 && waiting.get() > 0) {
+            // wakes up all waiting threads to terminate
+            signal(true);
+        }
+    }
+
+    private void signal(boolean all) {
+        lock.lock();
+        try {
+            if (all) {
+                changed.signalAll();
+            } else {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries which were merged into pending entries
+     * instead of being queued.
+     */
+    int getNumberOfCoalescedEntries() {
+        return coalesced;
+    }
+
+    /**
+     * @return the number of entries which were polled from this work list.
+     */
+    int getNumberOfProcessedEntries() {
+        return processed.get();
     }
 
     /**
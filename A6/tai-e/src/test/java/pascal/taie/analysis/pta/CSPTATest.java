@@ -22,8 +22,17 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.core.cs.selector.Zipper;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CSPTATest {
 
@@ -93,4 +102,62 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testBitmapPointsToSet() {
+        Tests.testCSPTA(DIR, "Array", "bitmap-pts:true");
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "bitmap-pts:true");
+    }
+
+    @Test
+    public void testCollapseCycles() {
+        Tests.testCSPTA(DIR, "Assign", "collapse-cycles:true");
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "collapse-cycles:true");
+    }
+
+    @Test
+    public void testParallel() {
+        // the parallel solver must reach the same fixed point
+        // as the sequential one
+        for (String main : new String[]{"New", "Assign", "StoreLoad",
+                "Call", "InstanceField", "StaticField", "Array"}) {
+            Tests.testCSPTA(DIR, main, "threads:4");
+        }
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "threads:4");
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "threads:4");
+        Tests.testCSPTA(DIR, "TwoType", "cs:2-type", "threads:4");
+    }
+
+    @Test
+    public void testIndexedCSManager() {
+        Tests.testCSPTA(DIR, "InstanceField", "indexed-cs-manager:true");
+        Tests.testCSPTA(DIR, "Array", "indexed-cs-manager:true");
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj",
+                "indexed-cs-manager:true", "bitmap-pts:true");
+    }
+
+    @Test
+    public void testScaler() {
+        // with an unbounded threshold, Scaler selects the most precise
+        // variant, i.e., 2-obj, for every method
+        Tests.testCSPTA(DIR, "TwoObject", "cs:scaler",
+                "scaler-tst:" + Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testZipper() {
+        Main.main(new String[]{"-pp", "-cp", "src/test/resources/pta/" + DIR,
+                "-m", "TwoObject",
+                "-a", CSPTA.ID + "=cs:ci;implicit-entries:false;only-app:true"});
+        PointerAnalysisResult pta = World.get().getResult(CSPTA.ID);
+        // the objects added into a list flow out of it via the iterator,
+        // i.e., the method of its inner class
+        Set<String> pcms = new Zipper(pta).selectPrecisionCriticalMethods()
+                .stream()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+        Assert.assertEquals(Set.of(
+                "<List: void add(java.lang.Object)>",
+                "<List$ListIterator: java.lang.Object next()>"), pcms);
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.World;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interned contexts. All contexts are nodes of a trie rooted at the empty
+ * context, where the path from the root to a node spells the elements of
+ * the context, thus each context has exactly one instance, and two contexts
+ * are equal iff they are the same object.
+ * <p>
+ * The operations commonly used by context selectors, i.e., appending
+ * an element and keeping the last k elements, look up the child map and
+ * the cached suffixes of a node, so that they do not allocate any objects
+ * once the resulting context has been created.
+ * <p>
+ * Each context is also assigned a dense index (in creation order, starting
+ * from 0 for the empty context), so that data of contexts can be kept in
+ * arrays (see {@link pascal.taie.analysis.pta.core.cs.element.IndexedCSManager}).
+ * <p>
+ * The trie is discarded when {@link World} is reset, see {@link #reset()},
+ * so the contexts do not outlive the analyses which create them.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class TrieContext implements Context, Indexable {
+
+    /**
+     * Number of created contexts, i.e., the next unused index.
+     */
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * The empty context, i.e., the root of the trie.
+     */
+    private static volatile TrieContext root = new TrieContext(null, null);
+
+    static {
+        World.registerResetCallback(TrieContext::reset);
+    }
+
+    private final int index;
+
+    private final TrieContext parent;
+
+    private final Object[] elements;
+
+    private final int hashCode;
+
+    /**
+     * Map from each element to the context of appending
+     * the element to this context.
+     */
+    private final ConcurrentMap<Object, TrieContext> children =
+            Maps.newConcurrentMap();
+
+    /**
+     * Cache of {@link #suffix(int)}. The i-th suffix is the context
+     * of the last i elements of this context.
+     */
+    private final TrieContext[] suffixes;
+
+    private TrieContext(TrieContext parent, Object element) {
+        this.index = counter.getAndIncrement();
+        this.parent = parent;
+        if (parent == null) {
+            elements = new Object[0];
+            // same as hash code of an empty list (as ListContext)
+            hashCode = 1;
+        } else {
+            elements = Arrays.copyOf(parent.elements, parent.elements.length + 1);
+            elements[parent.elements.length] = element;
+            hashCode = 31 * parent.hashCode + element.hashCode();
+        }
+        suffixes = new TrieContext[elements.length];
+    }
+
+    /**
+     * @return the empty context.
+     */
+    public static TrieContext make() {
+        return root;
+    }
+
+    /**
+     * @return the context that consists of given context elements.
+     */
+    public static TrieContext make(Object... elements) {
+        TrieContext context = root;
+        for (Object element : elements) {
+            context = context.getChild(element);
+        }
+        return context;
+    }
+
+    /**
+     * @return the context that consists of the elements of given context,
+     * which may not be a {@link TrieContext}.
+     */
+    public static TrieContext intern(Context context) {
+        if (context instanceof TrieContext trieContext) {
+            return trieContext;
+        }
+        TrieContext result = root;
+        for (int i = 0; i < context.getLength(); ++i) {
+            result = result.getChild(context.getElementAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return the context which consists of the last (at most)
+     * {@code limit - 1} elements of given context followed by given element,
+     * i.e., appends the element and keeps the last {@code limit} elements.
+     */
+    public static TrieContext append(Context context, Object element, int limit) {
+        if (limit <= 0) {
+            return root;
+        }
+        return intern(context).suffix(limit - 1).getChild(element);
+    }
+
+    /**
+     * @return the context which consists of the last (at most)
+     * {@code limit} elements of given context.
+     */
+    public static TrieContext truncate(Context context, int limit) {
+        return intern(context).suffix(limit);
+    }
+
+    /**
+     * Discards all created contexts and restarts the indexes from 0.
+     * The contexts created before the reset must not be used afterwards,
+     * as they are neither equal to nor indexed consistently with
+     * the contexts created after it.
+     */
+    public static void reset() {
+        counter.set(0);
+        root = new TrieContext(null, null);
+    }
+
+    /**
+     * @return the index of this context.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the parent of this context in the trie, i.e., this context
+     * without its last element, or null if this context is empty.
+     */
+    public TrieContext getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the context of appending given element to this context.
+     */
+    public TrieContext getChild(Object element) {
+        TrieContext child = children.get(element);
+        if (child == null) {
+            child = children.computeIfAbsent(element,
+                    e -> new TrieContext(this, e));
+        }
+        return child;
+    }
+
+    /**
+     * @return the context of the last (at most) {@code limit} elements
+     * of this context.
+     */
+    public TrieContext suffix(int limit) {
+        int length = elements.length;
+        if (limit >= length) {
+            return this;
+        }
+        if (limit <= 0) {
+            return root;
+        }
+        TrieContext suffix = suffixes[limit];
+        if (suffix == null) {
+            // benign race: all threads compute the same interned context
+            suffix = root;
+            for (int i = length - limit; i < length; ++i) {
+                suffix = suffix.getChild(elements[i]);
+            }
+            suffixes[limit] = suffix;
+        }
+        return suffix;
+    }
+
+    @Override
+    public int getLength() {
+        return elements.length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i >= elements.length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        return elements[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense indexes (0, 1, 2, ...) to {@link CSObj}s in the order
+ * they are first indexed, and maps the indexes back to the objects.
+ * <p>
+ * The index is stored in the object itself, so looking up the index
+ * of an indexed object is a field access. As each object can only hold
+ * one index, all objects of an analysis must be indexed by the same indexer.
+ * <p>
+ * This indexer is thread-safe: new indexes are assigned under the lock
+ * of the indexer, while looking up indexes and objects is lock-free.
+ */
+public class CSObjIndexer {
+
+    private volatile CSObj[] objs = new CSObj[1024];
+
+    private volatile int size;
+
+    /**
+     * @return the index of given object. The object is assigned
+     * the next unused index if it has not been indexed.
+     */
+    public int getIndex(CSObj obj) {
+        int index = obj.index;
+        if (index < 0) {
+            synchronized (this) {
+                index = obj.index;
+                if (index < 0) {
+                    index = size;
+                    CSObj[] array = objs;
+                    if (index == array.length) {
+                        array = objs = Arrays.copyOf(array, index * 2);
+                    }
+                    // stores the object before publishing its index,
+                    // so that the index can always be mapped back
+                    array[index] = obj;
+                    size = index + 1;
+                    obj.index = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    public CSObj getObject(int index) {
+        return objs[index];
+    }
+
+    /**
+     * @return the number of indexed objects.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CSManager} which can be accessed by multiple threads of the solver
+ * without a global lock. The elements are kept in concurrent maps, thus
+ * looking up an existing element does not lock, and a new element is
+ * created atomically by the map, so that all threads obtain the same
+ * element for the same arguments.
+ */
+public class ConcurrentCSManager implements CSManager {
+
+    private final ConcurrentMap<Var, ConcurrentMap<Context, CSVar>> vars =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<Obj, ConcurrentMap<Context, CSObj>> objs =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<Invoke, ConcurrentMap<Context, CSCallSite>> callSites =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<JMethod, ConcurrentMap<Context, CSMethod>> methods =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<JField, StaticField> staticFields =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<CSObj, ConcurrentMap<JField, InstanceField>> instanceFields =
+            Maps.newConcurrentMap();
+
+    private final ConcurrentMap<CSObj, ArrayIndex> arrayIndexes =
+            Maps.newConcurrentMap();
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return getInnerMap(vars, var).computeIfAbsent(context, unused ->
+                initializePointsToSet(new CSVar(var, context)));
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return getInnerMap(objs, obj).computeIfAbsent(heapContext, unused ->
+                new CSObj(obj, heapContext));
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return getInnerMap(callSites, callSite).computeIfAbsent(context, unused ->
+                new CSCallSite(callSite, context));
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return getInnerMap(methods, method).computeIfAbsent(context, unused ->
+                new CSMethod(method, context));
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field, unused ->
+                initializePointsToSet(new StaticField(field)));
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return getInnerMap(instanceFields, base).computeIfAbsent(field, unused ->
+                initializePointsToSet(new InstanceField(base, field)));
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return arrayIndexes.computeIfAbsent(array, unused ->
+                initializePointsToSet(new ArrayIndex(array)));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableSet(vars.keySet());
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Map<Context, CSVar> csVars = vars.get(var);
+        return csVars != null
+                ? Collections.unmodifiableCollection(csVars.values())
+                : Set.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return getElements(vars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return getElements(objs);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return getElements(instanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableCollection(arrayIndexes.values());
+    }
+
+    private static <K1, K2, V> ConcurrentMap<K2, V> getInnerMap(
+            ConcurrentMap<K1, ConcurrentMap<K2, V>> map, K1 key) {
+        ConcurrentMap<K2, V> inner = map.get(key);
+        return inner != null ? inner
+                : map.computeIfAbsent(key, unused -> Maps.newConcurrentMap());
+    }
+
+    private static <V> Collection<V> getElements(
+            ConcurrentMap<?, ? extends ConcurrentMap<?, V>> map) {
+        return map.values()
+                .stream()
+                .flatMap(inner -> inner.values().stream())
+                .toList();
+    }
+
+    private static <P extends Pointer> P initializePointsToSet(P pointer) {
+        pointer.setPointsToSet(PointsToSetFactory.make());
+        return pointer;
+    }
+}
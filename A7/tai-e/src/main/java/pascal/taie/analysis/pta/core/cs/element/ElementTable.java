@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+/**
+ * Open-addressing hash table (with linear probing) used by
+ * {@link IndexedCSManager} to look up elements without allocation.
+ * Entries are never removed, and null keys and values are not permitted.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+class ElementTable<K, V> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Object[] keys = new Object[INITIAL_CAPACITY];
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * @return the value of given key, or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        Object[] ks = keys;
+        int mask = ks.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Object k = ks[i];
+            if (k == null) {
+                return null;
+            }
+            if (k == key || k.equals(key)) {
+                return (V) values[i];
+            }
+        }
+    }
+
+    /**
+     * Associates given value with given key, which must be absent.
+     */
+    void put(K key, V value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        insert(keys, values, key, value);
+        ++size;
+    }
+
+    private void resize() {
+        Object[] newKeys = new Object[keys.length * 2];
+        Object[] newValues = new Object[values.length * 2];
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static void insert(Object[] keys, Object[] values,
+                               Object key, Object value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Spreads the bits of hash code, as the low bits of the hash codes
+     * of some keys (e.g., identity hash codes) are poorly distributed.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
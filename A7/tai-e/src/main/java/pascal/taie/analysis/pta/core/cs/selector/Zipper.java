@@ -0,0 +1,278 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultEx;
+import pascal.taie.analysis.pta.toolkit.PointerAnalysisResultExImpl;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Selects precision-critical methods in the style of Zipper
+ * (Li et al., Precision-Guided Context Sensitivity for Pointer Analysis,
+ * OOPSLA 2018), with respect to the result of a context-insensitive
+ * pointer analysis.
+ * <p>
+ * Context-insensitive analysis loses precision when objects flow into
+ * an object of class T via the parameters of its methods (IN methods),
+ * and flow out of it via the return values of its methods (OUT methods),
+ * as the objects of different callers are merged in T. The methods of
+ * the inner classes of T, e.g., iterators, are also IN/OUT methods of T.
+ * Such flows are found in the object flow graph (OFG) of the program,
+ * restricted to:
+ * <ul>
+ *     <li>the variables of the methods invoked on the objects of T or of
+ *     its inner classes (direct flows, e.g., identity and factory methods);</li>
+ *     <li>the fields of the objects of T and of the objects allocated
+ *     in those methods (wrapped and unwrapped flows, e.g., containers
+ *     which store objects into and load objects from their internal
+ *     arrays and entries).</li>
+ * </ul>
+ * The methods containing the variables on such flows are precision-critical,
+ * and only they need to be analyzed context-sensitively.
+ */
+public class Zipper {
+
+    private final PointerAnalysisResult pta;
+
+    private final PointerAnalysisResultEx ptaEx;
+
+    /**
+     * Successors of each node in the OFG. The nodes are variables
+     * and {@link FieldNode}s.
+     */
+    private final MultiMap<Object, Object> succs = Maps.newMultiMap();
+
+    /**
+     * Predecessors of each node in the OFG.
+     */
+    private final MultiMap<Object, Object> preds = Maps.newMultiMap();
+
+    public Zipper(PointerAnalysisResult pta) {
+        this.pta = pta;
+        this.ptaEx = new PointerAnalysisResultExImpl(pta);
+        buildOFG();
+    }
+
+    /**
+     * @return the precision-critical methods.
+     */
+    public Set<JMethod> selectPrecisionCriticalMethods() {
+        MultiMap<ClassType, Obj> objsOfType = Maps.newMultiMap();
+        for (Obj obj : pta.getObjects()) {
+            if (obj.getType() instanceof ClassType type) {
+                objsOfType.put(type, obj);
+            }
+        }
+        // objects of inner classes are considered as parts of
+        // the objects of their (top-level) outer classes
+        MultiMap<JClass, Obj> innerObjs = Maps.newMultiMap();
+        for (ClassType type : objsOfType.keySet()) {
+            JClass jclass = type.getJClass();
+            if (jclass != null && jclass.hasOuterClass()) {
+                JClass outer = jclass;
+                while (outer.hasOuterClass()) {
+                    outer = outer.getOuterClass();
+                }
+                innerObjs.putAll(outer, objsOfType.get(type));
+            }
+        }
+        Set<JMethod> pcms = Sets.newSet();
+        objsOfType.forEachSet((type, objs) -> pcms.addAll(
+                selectPrecisionCriticalMethods(objs, innerObjs.get(type.getJClass()))));
+        return pcms;
+    }
+
+    /**
+     * @param objs      objects of a class type T.
+     * @param innerObjs objects of the inner classes of T.
+     * @return precision-critical methods for T.
+     */
+    private Set<JMethod> selectPrecisionCriticalMethods(
+            Set<Obj> objs, Set<Obj> innerObjs) {
+        Set<JMethod> methods = Sets.newSet();
+        objs.forEach(obj -> methods.addAll(ptaEx.getMethodsInvokedOn(obj)));
+        // IN/OUT flows only go through the methods invoked on T
+        // and on its inner objects
+        innerObjs.forEach(obj -> methods.addAll(ptaEx.getMethodsInvokedOn(obj)));
+        List<Var> ins = methods.stream()
+                .flatMap(m -> m.getIR().getParams().stream())
+                .filter(Zipper::isReference)
+                .toList();
+        List<Var> outs = methods.stream()
+                .flatMap(m -> m.getIR().getReturnVars().stream())
+                .filter(Zipper::isReference)
+                .toList();
+        if (ins.isEmpty() || outs.isEmpty()) {
+            return Set.of();
+        }
+        Set<Obj> bases = Sets.newSet();
+        bases.addAll(objs);
+        bases.addAll(innerObjs);
+        methods.forEach(m -> bases.addAll(ptaEx.getObjectsAllocatedIn(m)));
+        Predicate<Object> inScope = node -> node instanceof Var var
+                ? methods.contains(var.getMethod())
+                : bases.contains(((FieldNode) node).base());
+        Set<Object> forward = reach(ins, succs, inScope);
+        Set<Object> backward = reach(outs, preds, inScope);
+        Set<JMethod> pcms = Sets.newSet();
+        for (Object node : forward) {
+            if (node instanceof Var var && backward.contains(var)) {
+                pcms.add(var.getMethod());
+            }
+        }
+        return pcms;
+    }
+
+    /**
+     * @return the nodes reachable from given nodes in the OFG
+     * (via given edges), without leaving given scope.
+     */
+    private static Set<Object> reach(Collection<?> sources,
+                                     MultiMap<Object, Object> edges,
+                                     Predicate<Object> inScope) {
+        Set<Object> visited = Sets.newSet();
+        Deque<Object> stack = new ArrayDeque<>();
+        for (Object source : sources) {
+            if (visited.add(source)) {
+                stack.push(source);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Object node = stack.pop();
+            for (Object next : edges.get(node)) {
+                if (inScope.test(next) && visited.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Builds the object flow graph of the reachable methods, where
+     * the objects of each instance field (and array) are resolved via
+     * the points-to sets of the bases. Static fields are omitted, as
+     * they are not parts of any object.
+     */
+    private void buildOFG() {
+        CallGraph<Invoke, JMethod> callGraph = pta.getCallGraph();
+        callGraph.reachableMethods().forEach(method -> {
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof Copy copy) {
+                    addEdge(copy.getRValue(), copy.getLValue());
+                } else if (stmt instanceof Cast cast) {
+                    addEdge(cast.getRValue().getValue(), cast.getLValue());
+                } else if (stmt instanceof LoadField load && !load.isStatic()) {
+                    JField field = load.getFieldRef().resolve();
+                    Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                    for (Obj obj : pta.getPointsToSet(base)) {
+                        addEdge(new FieldNode(obj, field), load.getLValue());
+                    }
+                } else if (stmt instanceof StoreField store && !store.isStatic()) {
+                    JField field = store.getFieldRef().resolve();
+                    Var base = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                    for (Obj obj : pta.getPointsToSet(base)) {
+                        addEdge(store.getRValue(), new FieldNode(obj, field));
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    for (Obj array : pta.getPointsToSet(load.getArrayAccess().getBase())) {
+                        addEdge(new FieldNode(array, null), load.getLValue());
+                    }
+                } else if (stmt instanceof StoreArray store) {
+                    for (Obj array : pta.getPointsToSet(store.getArrayAccess().getBase())) {
+                        addEdge(store.getRValue(), new FieldNode(array, null));
+                    }
+                } else if (stmt instanceof Invoke invoke) {
+                    addCallEdges(invoke, callGraph.getCalleesOf(invoke));
+                }
+            }
+        });
+    }
+
+    private void addCallEdges(Invoke invoke, Set<JMethod> callees) {
+        InvokeExp invokeExp = invoke.getInvokeExp();
+        Var result = invoke.getResult();
+        for (JMethod callee : callees) {
+            IR ir = callee.getIR();
+            for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                addEdge(invokeExp.getArg(i), ir.getParam(i));
+            }
+            if (result != null) {
+                for (Var ret : ir.getReturnVars()) {
+                    addEdge(ret, result);
+                }
+            }
+        }
+    }
+
+    private void addEdge(Object source, Object target) {
+        if (source instanceof Var var && !isReference(var)) {
+            return;
+        }
+        if (target instanceof Var var && !isReference(var)) {
+            return;
+        }
+        succs.put(source, target);
+        preds.put(target, source);
+    }
+
+    private static boolean isReference(Var var) {
+        return var.getType() instanceof ReferenceType;
+    }
+
+    /**
+     * Represents the objects stored in a field of an object.
+     * The field of array elements is null.
+     */
+    private record FieldNode(Obj base, JField field) {
+    }
+}
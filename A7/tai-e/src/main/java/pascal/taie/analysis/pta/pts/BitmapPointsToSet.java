@@ -0,0 +1,343 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * {@link PointsToSet} which represents the objects by a bitmap over
+ * the indexes assigned by a {@link CSObjIndexer}.
+ * <p>
+ * The bitmap is split into chunks of {@link #CHUNK_BITS} bits, and the
+ * chunks which contain no objects are not allocated, so that a small set
+ * of objects with large indexes is still compact. Union, difference and
+ * membership test work on whole words of the bitmaps, instead of hashing
+ * each object as the hash-based points-to sets do.
+ */
+public class BitmapPointsToSet implements PointsToSet {
+
+    private static final int CHUNK_SHIFT = 12;
+
+    /**
+     * Number of bits in each chunk.
+     */
+    private static final int CHUNK_BITS = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_WORDS = CHUNK_BITS / Long.SIZE;
+
+    private static final long[][] EMPTY = {};
+
+    private final CSObjIndexer indexer;
+
+    /**
+     * Chunks of the bitmap, may contain nulls.
+     */
+    private long[][] chunks = EMPTY;
+
+    /**
+     * Number of objects in this set.
+     */
+    private int size;
+
+    BitmapPointsToSet(CSObjIndexer indexer) {
+        this.indexer = indexer;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        long[] chunk = getOrCreateChunk(index >>> CHUNK_SHIFT);
+        int w = wordOf(index);
+        long bit = 1L << index;
+        if ((chunk[w] & bit) != 0) {
+            return false;
+        }
+        chunk[w] |= bit;
+        ++size;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof BitmapPointsToSet other) {
+            return union(other);
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    /**
+     * Adds the objects in given set to this set word by word.
+     */
+    private boolean union(BitmapPointsToSet other) {
+        long[][] otherChunks = other.chunks;
+        if (chunks.length < otherChunks.length) {
+            chunks = Arrays.copyOf(chunks, otherChunks.length);
+        }
+        boolean changed = false;
+        for (int c = 0; c < otherChunks.length; ++c) {
+            long[] src = otherChunks[c];
+            if (src == null) {
+                continue;
+            }
+            long[] dst = chunks[c];
+            if (dst == null) {
+                chunks[c] = src.clone();
+                size += count(src);
+                changed = true;
+                continue;
+            }
+            for (int w = 0; w < CHUNK_WORDS; ++w) {
+                long old = dst[w];
+                long word = old | src[w];
+                if (word != old) {
+                    dst[w] = word;
+                    size += Long.bitCount(word ^ old);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof BitmapPointsToSet other)) {
+            return PointsToSet.super.addAllDiff(pts);
+        }
+        long[][] otherChunks = other.chunks;
+        if (chunks.length < otherChunks.length) {
+            chunks = Arrays.copyOf(chunks, otherChunks.length);
+        }
+        BitmapPointsToSet diff = new BitmapPointsToSet(indexer);
+        diff.chunks = new long[otherChunks.length][];
+        for (int c = 0; c < otherChunks.length; ++c) {
+            long[] src = otherChunks[c];
+            if (src == null) {
+                continue;
+            }
+            long[] dst = chunks[c];
+            if (dst == null) {
+                // all objects in this chunk are new
+                int count = count(src);
+                chunks[c] = src.clone();
+                diff.chunks[c] = src.clone();
+                size += count;
+                diff.size += count;
+                continue;
+            }
+            long[] delta = null;
+            for (int w = 0; w < CHUNK_WORDS; ++w) {
+                long word = src[w] & ~dst[w];
+                if (word != 0) {
+                    if (delta == null) {
+                        delta = new long[CHUNK_WORDS];
+                    }
+                    delta[w] = word;
+                    dst[w] |= word;
+                    int count = Long.bitCount(word);
+                    size += count;
+                    diff.size += count;
+                }
+            }
+            diff.chunks[c] = delta;
+        }
+        return diff;
+    }
+
+    /**
+     * @return a new set which contains the objects in this set
+     * but not in given set.
+     */
+    public BitmapPointsToSet difference(PointsToSet pts) {
+        BitmapPointsToSet result = new BitmapPointsToSet(indexer);
+        if (pts instanceof BitmapPointsToSet other) {
+            long[][] otherChunks = other.chunks;
+            result.chunks = new long[chunks.length][];
+            for (int c = 0; c < chunks.length; ++c) {
+                long[] chunk = chunks[c];
+                if (chunk == null) {
+                    continue;
+                }
+                long[] sub = c < otherChunks.length ? otherChunks[c] : null;
+                if (sub == null) {
+                    result.chunks[c] = chunk.clone();
+                    result.size += count(chunk);
+                    continue;
+                }
+                long[] diff = null;
+                for (int w = 0; w < CHUNK_WORDS; ++w) {
+                    long word = chunk[w] & ~sub[w];
+                    if (word != 0) {
+                        if (diff == null) {
+                            diff = new long[CHUNK_WORDS];
+                        }
+                        diff[w] = word;
+                        result.size += Long.bitCount(word);
+                    }
+                }
+                result.chunks[c] = diff;
+            }
+        } else {
+            for (CSObj obj : this) {
+                if (!pts.contains(obj)) {
+                    result.addObject(obj);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = obj.getIndex();
+        if (index < 0) {
+            // the object has never been added to any bitmap
+            return false;
+        }
+        int c = index >>> CHUNK_SHIFT;
+        if (c >= chunks.length) {
+            return false;
+        }
+        long[] chunk = chunks[c];
+        return chunk != null && (chunk[wordOf(index)] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BitmapPointsToSet.this.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj
+                        && BitmapPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return new Iterator<>() {
+
+            private int chunk = -1;
+
+            private int word = CHUNK_WORDS - 1;
+
+            /**
+             * Remaining bits of current word.
+             */
+            private long bits;
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0) {
+                    if (++word == CHUNK_WORDS) {
+                        do {
+                            if (++chunk >= chunks.length) {
+                                return false;
+                            }
+                        } while (chunks[chunk] == null);
+                        word = 0;
+                    }
+                    bits = chunks[chunk][word];
+                }
+                return true;
+            }
+
+            @Override
+            public CSObj next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return indexer.getObject(
+                        (chunk << CHUNK_SHIFT) + word * Long.SIZE + bit);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+
+    private long[] getOrCreateChunk(int c) {
+        if (c >= chunks.length) {
+            chunks = Arrays.copyOf(chunks,
+                    Math.max(c + 1, chunks.length * 2));
+        }
+        long[] chunk = chunks[c];
+        if (chunk == null) {
+            chunk = chunks[c] = new long[CHUNK_WORDS];
+        }
+        return chunk;
+    }
+
+    private static int wordOf(int index) {
+        return (index >>> 6) & (CHUNK_WORDS - 1);
+    }
+
+    private static int count(long[] chunk) {
+        int count = 0;
+        for (long word : chunk) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
@@ -35,8 +36,37 @@ public class PointsToSetFactory {
 
     private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
 
+    /**
+     * Indexer of the objects in bitmap-based points-to sets,
+     * or null if hash-based points-to sets are made.
+     */
+    private static CSObjIndexer indexer;
+
+    /**
+     * Selects the representation of the points-to sets made afterwards.
+     * This should be called before each pointer analysis starts, so that
+     * the objects of each analysis are indexed by their own indexer.
+     *
+     * @param bitmap if true, makes {@link BitmapPointsToSet}s
+     *               (over a fresh {@link CSObjIndexer}), otherwise
+     *               makes hash-based points-to sets.
+     */
+    public static void setBitmap(boolean bitmap) {
+        setBitmap(bitmap, new CSObjIndexer());
+    }
+
+    /**
+     * Same as {@link #setBitmap(boolean)}, but indexes the objects in
+     * bitmap-based points-to sets by given indexer, which may also be
+     * used by other components of the analysis.
+     */
+    public static void setBitmap(boolean bitmap, CSObjIndexer objIndexer) {
+        indexer = bitmap ? objIndexer : null;
+    }
+
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return indexer != null ? new BitmapPointsToSet(indexer)
+                : new DelegatePointsToSet(setFactory.get());
     }
 
     /**
@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pointer flow graph which can be modified and queried by multiple
+ * threads of the solver without locking. The successors of each pointer
+ * are kept in a concurrent set, which is returned by {@link #getSuccsOf}
+ * as is: iterating the set sees all the edges added before the iteration
+ * starts, and may or may not see the edges added during the iteration.
+ * <p>
+ * Cycle collapsing is not supported by this graph, as the points-to
+ * sets of merged pointers would be replaced concurrently.
+ */
+class ConcurrentPointerFlowGraph extends PointerFlowGraph {
+
+    private final ConcurrentMap<Pointer, Set<Pointer>> successors =
+            Maps.newConcurrentMap();
+
+    @Override
+    boolean addEdge(Pointer source, Pointer target) {
+        if (source == target) {
+            return false;
+        }
+        Set<Pointer> succs = successors.get(source);
+        if (succs == null) {
+            succs = successors.computeIfAbsent(source,
+                    unused -> ConcurrentHashMap.newKeySet());
+        }
+        return succs.add(target);
+    }
+
+    @Override
+    Set<Pointer> getSuccsOf(Pointer pointer) {
+        return successors.getOrDefault(pointer, Set.of());
+    }
+
+    @Override
+    List<Pointer> collapseCycles(Pointer pointer) {
+        throw new UnsupportedOperationException();
+    }
+}
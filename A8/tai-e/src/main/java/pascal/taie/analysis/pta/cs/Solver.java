@@ -37,7 +37,10 @@ import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.ConcurrentCSManager;
+import pascal.taie.analysis.pta.core.cs.element.IndexedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
@@ -45,7 +48,9 @@ import pascal.taie.analysis.pta.core.cs.element.StaticField;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.plugin.taint.DemandSlice;
 import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintConfigWatcher;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
@@ -62,6 +67,17 @@ import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Solver {
 
@@ -81,10 +97,37 @@ public class Solver {
 
     private WorkList workList;
 
+    /**
+     * Taint analysis, or null if option "taint-config" is not given,
+     * e.g., for the pre-analysis of Scaler and Zipper.
+     */
     private TaintAnalysiss taintAnalysis;
 
     private PointerAnalysisResult result;
 
+    /**
+     * If not null, the solver only processes the variables, fields
+     * and call sites in this slice, which suffices to compute
+     * the taint flows to the sinks.
+     */
+    private DemandSlice slice;
+
+    /**
+     * Whether to collapse the cycles of the PFG during propagation.
+     */
+    private boolean collapseCycles;
+
+    /**
+     * Number of threads which process the work-list entries.
+     */
+    private int threads;
+
+    /**
+     * Abstract object of each allocation site obtained from
+     * {@link #heapModel}, only used when solving with multiple threads.
+     */
+    private Map<New, Obj> objs;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
@@ -107,15 +150,75 @@ public class Solver {
     void solve() {
         initialize();
         analyze();
-        taintAnalysis.onFinish();
+        logger.info("{} work-list entries are processed, {} entries are coalesced",
+                workList.getNumberOfProcessedEntries(),
+                workList.getNumberOfCoalescedEntries());
+        if (collapseCycles) {
+            logger.info("{} pointers are merged by cycle collapsing",
+                    pointerFlowGraph.getNumberOfMergedPointers());
+        }
+        if (taintAnalysis != null) {
+            taintAnalysis.onFinish();
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        CSObjIndexer objIndexer = new CSObjIndexer();
+        PointsToSetFactory.setBitmap(
+                options.getBooleanOrDefault("bitmap-pts", false), objIndexer);
+        Object threadsOption = options.get("threads");
+        threads = threadsOption != null ? (Integer) threadsOption : 1;
+        if (threads > 1) {
+            // the indexed manager grows its tables in place,
+            // which is not supported by the parallel solver
+            if (options.getBooleanOrDefault("indexed-cs-manager", false)) {
+                logger.warn("indexed-cs-manager is ignored when solving with {} threads",
+                        threads);
+            }
+            csManager = new ConcurrentCSManager();
+            objs = Maps.newConcurrentMap();
+            pointerFlowGraph = new ConcurrentPointerFlowGraph();
+            workList = new WorkList(true);
+            // cycle collapsing replaces points-to sets of pointers,
+            // which is not supported by the parallel solver
+            if (options.getBooleanOrDefault("collapse-cycles", false)) {
+                logger.warn("collapse-cycles is ignored when solving with {} threads",
+                        threads);
+            }
+            collapseCycles = false;
+        } else {
+            if (options.getBooleanOrDefault("taint-watch", false)) {
+                // the taint config watcher creates CS elements after solving,
+                // while the following analyses read them
+                csManager = new ConcurrentCSManager();
+            } else {
+                csManager = options.getBooleanOrDefault("indexed-cs-manager", false)
+                        ? new IndexedCSManager(objIndexer)
+                        : new MapBasedCSManager();
+            }
+            pointerFlowGraph = new PointerFlowGraph();
+            workList = new WorkList();
+            collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
+            // sparse taint propagation follows the PFG edges between the
+            // pointers, which are redirected by cycle collapsing
+            if (collapseCycles && TaintAnalysiss.isSparse(options)) {
+                logger.warn("collapse-cycles is ignored for sparse taint propagation");
+                collapseCycles = false;
+            }
+        }
         callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
-        taintAnalysis = new TaintAnalysiss(this);
+        if (options.get("taint-config") != null) {
+            taintAnalysis = new TaintAnalysiss(this);
+        }
+        if (taintAnalysis != null &&
+                options.getBooleanOrDefault("taint-demand", false)) {
+            // the slice only covers the sinks of the initial taint config
+            if (options.getBooleanOrDefault("taint-watch", false)) {
+                logger.warn("taint-demand is ignored when taint-watch is enabled");
+            } else {
+                slice = taintAnalysis.computeDemandSlice();
+            }
+        }
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -128,7 +231,10 @@ public class Solver {
      * Processes new reachable context-sensitive method.
      */
     private void addReachable(CSMethod csMethod) {
-        // TODO - finish me
+        if (callGraph.addReachableMethod(csMethod)) {
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            csMethod.getMethod().getIR().forEach(s -> s.accept(stmtProcessor));
+        }
     }
 
     /**
@@ -145,22 +251,189 @@ public class Solver {
             this.context = csMethod.getContext();
         }
 
-        // TODO - if you choose to implement addReachable()
-        //  via visitor pattern, then finish me
+        @Override
+        public Void visit(New stmt) {
+            if (!isRelevant(stmt.getLValue())) {
+                return null;
+            }
+            Obj obj = getObj(stmt);
+            Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
+            CSObj csObj = csManager.getCSObj(heapContext, obj);
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()),
+                    PointsToSetFactory.make(csObj));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            if (!isRelevant(stmt.getLValue())) {
+                return null;
+            }
+            addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic() && isRelevant(stmt.getLValue())) {
+                JField field = stmt.getFieldRef().resolve();
+                addPFGEdge(csManager.getStaticField(field),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                JField field = stmt.getFieldRef().resolve();
+                if (isRelevant(field)) {
+                    addPFGEdge(csManager.getCSVar(context, stmt.getRValue()),
+                            csManager.getStaticField(field));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic() && isRelevant(stmt)) {
+                JMethod callee = resolveCallee(null, stmt);
+                if (callee != null) {
+                    CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                    Context calleeContext = contextSelector.selectContext(
+                            csCallSite, callee);
+                    processCallEdge(csCallSite,
+                            csManager.getCSMethod(calleeContext, callee));
+                }
+            }
+            return null;
+        }
     }
 
     /**
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
-        // TODO - finish me
+        if (pointerFlowGraph.addEdge(source, target)) {
+            PointsToSet pts = source.getPointsToSet();
+            if (threads > 1) {
+                // the points-to set of source may be modified by other
+                // threads, thus propagates a snapshot of it
+                pts = copyOf(pts);
+            }
+            if (!pts.isEmpty()) {
+                workList.addEntry(target, pts);
+            }
+            if (taintAnalysis != null) {
+                taintAnalysis.onNewPFGEdge(source, target);
+            }
+        }
     }
 
     /**
      * Processes work-list entries until the work-list is empty.
      */
     private void analyze() {
-        // TODO - finish me
+        if (threads > 1) {
+            analyzeInParallel();
+        } else {
+            while (!workList.isEmpty()) {
+                processEntry(workList.pollEntry());
+            }
+        }
+    }
+
+    /**
+     * Processes work-list entries with {@link #threads} worker threads.
+     * Each worker takes and processes entries until all entries
+     * (including the ones added by other workers) have been processed,
+     * and waits when no entry is available.
+     * <p>
+     * The solver reaches the same fixed point as the sequential one,
+     * as the points-to set of each pointer is only updated when holding
+     * the lock of the set, and each PFG edge either exists when the new
+     * objects of its source are propagated, or is added before a snapshot
+     * of the points-to set of its source is taken (see {@link #addPFGEdge}).
+     */
+    private void analyzeInParallel() {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<Void> workers = new ExecutorCompletionService<>(executor);
+        try {
+            for (int i = 0; i < threads; ++i) {
+                workers.submit(() -> {
+                    WorkList.Entry entry;
+                    while (!Thread.currentThread().isInterrupted() &&
+                            (entry = workList.takeEntry()) != null) {
+                        try {
+                            processEntry(entry);
+                        } finally {
+                            workList.finishEntry();
+                        }
+                    }
+                    return null;
+                });
+            }
+            // a failed worker stops the others (see the finally block),
+            // which may wait for the entries it would have added
+            for (int i = 0; i < threads; ++i) {
+                workers.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisException("Interrupted while solving pointer analysis", e);
+        } catch (ExecutionException e) {
+            throw new AnalysisException("Failed to solve pointer analysis", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Propagates the points-to set of given entry, and processes
+     * the statements which use the variable of the entry (if any)
+     * with the new objects.
+     */
+    private void processEntry(WorkList.Entry entry) {
+        Pointer pointer = entry.pointer();
+        PointsToSet delta = propagate(pointer, entry.pointsToSet());
+        if (pointer instanceof CSVar csVar && !delta.isEmpty()) {
+            Var var = csVar.getVar();
+            Context context = csVar.getContext();
+            for (CSObj obj : delta) {
+                for (StoreField store : var.getStoreFields()) {
+                    JField field = store.getFieldRef().resolve();
+                    if (isRelevant(field)) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                csManager.getInstanceField(obj, field));
+                    }
+                }
+                for (LoadField load : var.getLoadFields()) {
+                    if (isRelevant(load.getLValue())) {
+                        JField field = load.getFieldRef().resolve();
+                        addPFGEdge(csManager.getInstanceField(obj, field),
+                                csManager.getCSVar(context, load.getLValue()));
+                    }
+                }
+                if (slice == null || slice.containsArrays()) {
+                    for (StoreArray store : var.getStoreArrays()) {
+                        addPFGEdge(csManager.getCSVar(context, store.getRValue()),
+                                csManager.getArrayIndex(obj));
+                    }
+                    for (LoadArray load : var.getLoadArrays()) {
+                        if (isRelevant(load.getLValue())) {
+                            addPFGEdge(csManager.getArrayIndex(obj),
+                                    csManager.getCSVar(context, load.getLValue()));
+                        }
+                    }
+                }
+                processCall(csVar, obj);
+            }
+            if (taintAnalysis != null) {
+                taintAnalysis.onNewPointsToSet(csVar, delta);
+            }
+        }
     }
 
     /**
@@ -168,8 +441,29 @@ public class Solver {
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
-        // TODO - finish me
-        return null;
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet diff;
+        if (threads > 1) {
+            synchronized (pts) {
+                diff = pts.addAllDiff(pointsToSet);
+            }
+        } else {
+            diff = pts.addAllDiff(pointsToSet);
+        }
+        if (!diff.isEmpty()) {
+            if (collapseCycles) {
+                for (Pointer rep : pointerFlowGraph.collapseCycles(pointer)) {
+                    PointsToSet repPts = rep.getPointsToSet();
+                    for (Pointer succ : pointerFlowGraph.getSuccsOf(rep)) {
+                        workList.addEntry(succ, repPts);
+                    }
+                }
+            }
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                workList.addEntry(succ, diff);
+            }
+        }
+        return diff;
     }
 
     /**
@@ -179,7 +473,74 @@ public class Solver {
      * @param recvObj set of new discovered objects pointed by the variable.
      */
     private void processCall(CSVar recv, CSObj recvObj) {
-        // TODO - finish me
+        Context context = recv.getContext();
+        for (Invoke callSite : recv.getVar().getInvokes()) {
+            if (!isRelevant(callSite)) {
+                continue;
+            }
+            JMethod callee = resolveCallee(recvObj, callSite);
+            if (callee == null) {
+                continue;
+            }
+            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+            Context calleeContext = contextSelector.selectContext(
+                    csCallSite, recvObj, callee);
+            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+            Var thisVar = callee.getIR().getThis();
+            if (isRelevant(thisVar)) {
+                workList.addEntry(csManager.getCSVar(calleeContext, thisVar),
+                        PointsToSetFactory.make(recvObj));
+            }
+            processCallEdge(csCallSite, csCallee);
+        }
+    }
+
+    /**
+     * Adds a call edge from given call site to given callee, and if the edge
+     * is new, adds the PFG edges for the arguments and return values.
+     */
+    private void processCallEdge(CSCallSite csCallSite, CSMethod csCallee) {
+        Invoke callSite = csCallSite.getCallSite();
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        if (callGraph.addEdge(new Edge<>(kind, csCallSite, csCallee))) {
+            addReachable(csCallee);
+            Context callerContext = csCallSite.getContext();
+            Context calleeContext = csCallee.getContext();
+            JMethod callee = csCallee.getMethod();
+            InvokeExp invokeExp = callSite.getInvokeExp();
+            for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+                Var param = callee.getIR().getParam(i);
+                if (isRelevant(param)) {
+                    addPFGEdge(csManager.getCSVar(callerContext, invokeExp.getArg(i)),
+                            csManager.getCSVar(calleeContext, param));
+                }
+            }
+            Var result = callSite.getResult();
+            if (result != null && isRelevant(result)) {
+                CSVar csResult = csManager.getCSVar(callerContext, result);
+                for (Var ret : callee.getIR().getReturnVars()) {
+                    addPFGEdge(csManager.getCSVar(calleeContext, ret), csResult);
+                }
+            }
+            if (taintAnalysis != null) {
+                taintAnalysis.onNewCallEdge(csCallSite, csCallee);
+            }
+        }
+    }
+
+    // In demand-driven mode, the solver skips the statements which
+    // only propagate objects to the elements out of the slice.
+
+    private boolean isRelevant(Var var) {
+        return slice == null || slice.contains(var);
+    }
+
+    private boolean isRelevant(JField field) {
+        return slice == null || slice.contains(field);
+    }
+
+    private boolean isRelevant(Invoke callSite) {
+        return slice == null || slice.contains(callSite);
     }
 
     /**
@@ -195,6 +556,68 @@ public class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    private Obj getObj(New allocSite) {
+        if (threads > 1) {
+            // the heap model is not thread-safe, thus only the first lookup
+            // of each allocation site goes to the heap model under its lock
+            Obj obj = objs.get(allocSite);
+            if (obj == null) {
+                synchronized (heapModel) {
+                    obj = heapModel.getObj(allocSite);
+                }
+                objs.putIfAbsent(allocSite, obj);
+            }
+            return obj;
+        }
+        return heapModel.getObj(allocSite);
+    }
+
+    /**
+     * @return a copy of given points-to set, which may be
+     * modified by other threads.
+     */
+    private static PointsToSet copyOf(PointsToSet pts) {
+        PointsToSet copy = PointsToSetFactory.make();
+        synchronized (pts) {
+            copy.addAll(pts);
+        }
+        return copy;
+    }
+
+    /**
+     * @return successors of given pointer in the PFG.
+     */
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
+        return pointerFlowGraph.getSuccsOf(pointer);
+    }
+
+    /**
+     * Adds given objects to the points-to set of given pointer,
+     * which are propagated when the solver processes the work list.
+     */
+    public void addPointsTo(Pointer pointer, PointsToSet pointsToSet) {
+        workList.addEntry(pointer, pointsToSet);
+    }
+
+    /**
+     * Starts a daemon thread which re-analyzes taint flows each time the taint
+     * config is modified, so that the solved result can be returned to
+     * the following analyses.
+     *
+     * @return the handle to stop the thread, or null if the taint analysis
+     * is not enabled.
+     */
+    @Nullable
+    TaintConfigWatcher startWatchingTaintConfig() {
+        if (taintAnalysis == null) {
+            logger.warn("taint-watch is ignored as taint-config is not given");
+            return null;
+        }
+        TaintConfigWatcher watcher = taintAnalysis.newConfigWatcher();
+        watcher.start();
+        return watcher;
+    }
+
     public PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
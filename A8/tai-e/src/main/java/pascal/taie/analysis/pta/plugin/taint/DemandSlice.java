@@ -0,0 +1,410 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.FieldAccess;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * The part of the program which may affect the taint flows to the sinks,
+ * i.e., the backward slice of the argument variables of the sink call sites.
+ * <p>
+ * The slice is computed before pointer analysis by exploring, from the sink
+ * arguments, the statements which may propagate objects to the variables
+ * in the slice (the same statements which the solver adds PFG edges for),
+ * backwards over a call graph built by class hierarchy analysis (CHA).
+ * Instance fields are handled field-based (i.e., a load from field f
+ * depends on all stores to f), and all array elements are merged.
+ * The base variables of the call sites in the slice are also in the slice,
+ * so are the call sites which may reach the methods in the slice, so that
+ * the solver resolves the calls and reaches the methods exactly as
+ * whole-program analysis does.
+ * <p>
+ * Hence, a pointer analysis which only processes the variables, fields
+ * and call sites in this slice computes the same points-to sets for
+ * the variables in the slice (in particular, the sink arguments)
+ * as whole-program pointer analysis.
+ */
+public class DemandSlice {
+
+    private final TaintConfig config;
+
+    private final ClassHierarchy hierarchy;
+
+    // CHA call graph and indexes of the statements in the methods
+    // reachable in the CHA call graph
+
+    private final Set<JMethod> chaMethods = Sets.newSet();
+
+    private final MultiMap<Invoke, JMethod> chaCallees = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, Invoke> chaCallers = Maps.newMultiMap();
+
+    private final MultiMap<Var, Stmt> definitions = Maps.newMultiMap();
+
+    private final MultiMap<JField, StoreField> fieldStores = Maps.newMultiMap();
+
+    private final List<StoreArray> arrayStores = new ArrayList<>();
+
+    /**
+     * Taint transfers to each variable, which map the target variable
+     * to the call sites and source variables of the transfers.
+     */
+    private final MultiMap<Var, TransferSource> transfersTo = Maps.newMultiMap();
+
+    private final List<Invoke> sinkCallSites = new ArrayList<>();
+
+    // elements in the slice
+
+    private final Set<Var> vars = Sets.newSet();
+
+    private final Set<JField> fields = Sets.newSet();
+
+    private final Set<Invoke> callSites = Sets.newSet();
+
+    private final Set<JMethod> methods = Sets.newSet();
+
+    private boolean arrays;
+
+    private final Queue<Object> workList = new ArrayDeque<>();
+
+    DemandSlice(TaintConfig config) {
+        this.config = config;
+        this.hierarchy = World.get().getClassHierarchy();
+        buildCHACallGraph(World.get().getMainMethod());
+        for (Invoke sinkCall : sinkCallSites) {
+            addCallSite(sinkCall);
+            InvokeExp invokeExp = sinkCall.getInvokeExp();
+            for (JMethod callee : chaCallees.get(sinkCall)) {
+                for (Sink sink : config.getSinksOf(callee)) {
+                    addVar(invokeExp.getArg(sink.index()));
+                }
+            }
+        }
+        slice();
+    }
+
+    /**
+     * @return true if given variable is in this slice, otherwise false.
+     */
+    public boolean contains(Var var) {
+        return vars.contains(var);
+    }
+
+    /**
+     * @return true if given field is in this slice, otherwise false.
+     */
+    public boolean contains(JField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @return true if given call site is in this slice, otherwise false.
+     */
+    public boolean contains(Invoke callSite) {
+        return callSites.contains(callSite);
+    }
+
+    /**
+     * @return true if array elements are in this slice, otherwise false.
+     */
+    public boolean containsArrays() {
+        return arrays;
+    }
+
+    /**
+     * @return the number of sink call sites in the CHA call graph.
+     */
+    public int getNumberOfSinkCallSites() {
+        return sinkCallSites.size();
+    }
+
+    /**
+     * @return the number of methods in this slice.
+     */
+    public int getNumberOfMethods() {
+        return methods.size();
+    }
+
+    /**
+     * @return the number of methods reachable in the CHA call graph.
+     */
+    public int getNumberOfReachableMethods() {
+        return chaMethods.size();
+    }
+
+    /**
+     * @return the number of variables in this slice.
+     */
+    public int getNumberOfVars() {
+        return vars.size();
+    }
+
+    /**
+     * Builds the CHA call graph from given entry, and indexes
+     * the statements of the reachable methods.
+     */
+    private void buildCHACallGraph(JMethod entry) {
+        Queue<JMethod> queue = new ArrayDeque<>();
+        chaMethods.add(entry);
+        queue.add(entry);
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof Invoke callSite) {
+                    for (JMethod callee : resolve(callSite)) {
+                        chaCallees.put(callSite, callee);
+                        chaCallers.put(callee, callSite);
+                        if (chaMethods.add(callee)) {
+                            queue.add(callee);
+                        }
+                    }
+                    indexCallSite(callSite);
+                } else if (stmt instanceof StoreField store) {
+                    fieldStores.put(store.getFieldRef().resolve(), store);
+                } else if (stmt instanceof StoreArray store) {
+                    arrayStores.add(store);
+                }
+                stmt.getDef().ifPresent(lValue -> {
+                    if (lValue instanceof Var var) {
+                        definitions.put(var, stmt);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Resolves the callees of given call site via CHA.
+     */
+    private Set<JMethod> resolve(Invoke callSite) {
+        Set<JMethod> callees = Sets.newHybridSet();
+        if (callSite.isVirtual() || callSite.isInterface()) {
+            MethodRef methodRef = callSite.getMethodRef();
+            for (JClass jclass : hierarchy.getAllSubclassesOf(
+                    methodRef.getDeclaringClass(), true)) {
+                if (!jclass.isAbstract()) {
+                    JMethod callee = hierarchy.dispatch(jclass, methodRef);
+                    if (callee != null && !callee.isAbstract()) {
+                        callees.add(callee);
+                    }
+                }
+            }
+        } else if (callSite.isStatic() || callSite.isSpecial()) {
+            JMethod callee = CallGraphs.resolveCallee(null, callSite);
+            if (callee != null) {
+                callees.add(callee);
+            }
+        }
+        return callees;
+    }
+
+    /**
+     * Indexes the sinks and taint transfers of the callees of given call site.
+     */
+    private void indexCallSite(Invoke callSite) {
+        boolean isSinkCall = false;
+        for (JMethod callee : chaCallees.get(callSite)) {
+            isSinkCall |= !config.getSinksOf(callee).isEmpty();
+            for (TaintTransfer transfer : config.getTransfersOf(callee)) {
+                Var from = getVar(callSite, transfer.from());
+                Var to = getVar(callSite, transfer.to());
+                if (from != null && to != null) {
+                    transfersTo.put(to, new TransferSource(callSite, from));
+                }
+            }
+        }
+        if (isSinkCall) {
+            sinkCallSites.add(callSite);
+        }
+    }
+
+    /**
+     * Explores the statements which may propagate objects to the elements
+     * in the slice, until no new elements are added to the slice.
+     */
+    private void slice() {
+        while (!workList.isEmpty()) {
+            Object element = workList.poll();
+            if (element instanceof Var var) {
+                sliceVar(var);
+            } else if (element instanceof JField field) {
+                sliceField(field);
+            } else if (element instanceof Invoke callSite) {
+                sliceCallSite(callSite);
+            } else if (element instanceof JMethod method) {
+                sliceMethod(method);
+            } else {
+                // the array elements
+                sliceArrays();
+            }
+        }
+    }
+
+    private void sliceVar(Var var) {
+        addMethod(var.getMethod());
+        for (Stmt def : definitions.get(var)) {
+            if (def instanceof Copy copy) {
+                addVar(copy.getRValue());
+            } else if (def instanceof LoadField load) {
+                FieldAccess access = load.getFieldAccess();
+                if (access instanceof InstanceFieldAccess instanceAccess) {
+                    addVar(instanceAccess.getBase());
+                }
+                addField(load.getFieldRef().resolve());
+            } else if (def instanceof LoadArray load) {
+                addVar(load.getArrayAccess().getBase());
+                addArrays();
+            } else if (def instanceof Invoke callSite) {
+                addCallSite(callSite);
+                for (JMethod callee : chaCallees.get(callSite)) {
+                    callee.getIR().getReturnVars().forEach(this::addVar);
+                }
+            }
+        }
+        IR ir = var.getMethod().getIR();
+        int index = ir.getParams().indexOf(var);
+        if (index >= 0) {
+            for (Invoke callSite : chaCallers.get(var.getMethod())) {
+                addCallSite(callSite);
+                addVar(callSite.getInvokeExp().getArg(index));
+            }
+        }
+        // "this" variable depends on the receivers of the call sites,
+        // which are added with the call sites when the method is sliced
+        for (TransferSource transfer : transfersTo.get(var)) {
+            addCallSite(transfer.callSite());
+            addVar(transfer.from());
+        }
+    }
+
+    // the methods of the stores are added with their variables
+
+    private void sliceField(JField field) {
+        for (StoreField store : fieldStores.get(field)) {
+            if (store.getFieldAccess() instanceof InstanceFieldAccess access) {
+                addVar(access.getBase());
+            }
+            addVar(store.getRValue());
+        }
+    }
+
+    private void sliceArrays() {
+        for (StoreArray store : arrayStores) {
+            addVar(store.getArrayAccess().getBase());
+            addVar(store.getRValue());
+        }
+    }
+
+    private void sliceCallSite(Invoke callSite) {
+        addMethod(callSite.getContainer());
+        if (callSite.getInvokeExp() instanceof InvokeInstanceExp invokeExp) {
+            addVar(invokeExp.getBase());
+        }
+    }
+
+    private void sliceMethod(JMethod method) {
+        // the solver needs to reach the method via the same call sites
+        // as whole-program analysis
+        chaCallers.get(method).forEach(this::addCallSite);
+    }
+
+    private void addVar(Var var) {
+        if (vars.add(var)) {
+            workList.add(var);
+        }
+    }
+
+    private void addField(JField field) {
+        if (fields.add(field)) {
+            workList.add(field);
+        }
+    }
+
+    private void addCallSite(Invoke callSite) {
+        if (callSites.add(callSite)) {
+            workList.add(callSite);
+        }
+    }
+
+    private void addMethod(JMethod method) {
+        if (methods.add(method)) {
+            workList.add(method);
+        }
+    }
+
+    private void addArrays() {
+        if (!arrays) {
+            arrays = true;
+            workList.add(arrayStores);
+        }
+    }
+
+    /**
+     * @return the variable of given call site at given index,
+     * which follows the convention of {@link TaintTransfer},
+     * or null if the call site does not have such variable.
+     */
+    private static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instanceExp
+                    ? instanceExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getResult();
+            default -> invokeExp.getArg(index);
+        };
+    }
+
+    /**
+     * Source variable of a taint transfer at a call site.
+     */
+    private record TransferSource(Invoke callSite, Var from) {
+    }
+}
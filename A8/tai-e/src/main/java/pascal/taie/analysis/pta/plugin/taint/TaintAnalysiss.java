@@ -25,14 +25,45 @@ package pascal.taie.analysis.pta.plugin.taint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.cs.Solver;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
 
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.stream.Stream;
 
 public class TaintAnalysiss {
 
@@ -40,7 +71,7 @@ public class TaintAnalysiss {
 
     private final TaintManager manager;
 
-    private final TaintConfig config;
+    private TaintConfig config;
 
     private final Solver solver;
 
@@ -48,30 +79,502 @@ public class TaintAnalysiss {
 
     private final Context emptyContext;
 
+    /**
+     * Taint transfer edges from each variable. The edges are only added
+     * and read while holding the lock of this analysis, but the keys are
+     * kept in a concurrent map, so that {@link #onNewPointsToSet} can skip
+     * the variables without edges before taking the lock.
+     */
+    private final MultiMap<CSVar, TransferEdge> transferEdges =
+            Maps.newMultiMap(Maps.newConcurrentMap());
+
+    /**
+     * Whether to propagate taint objects on the taint flow graph, i.e.,
+     * the PFG edges of the solver plus the taint transfer edges, instead
+     * of the points-to sets of the solver. In this mode, taint objects
+     * do not inflate the points-to sets, and they never trigger the
+     * processing of field accesses and calls on their pointers.
+     */
+    private final boolean sparse;
+
+    /**
+     * Taint objects of the pointers on the taint flow graph,
+     * only used in sparse mode.
+     */
+    private final Map<Pointer, PointsToSet> taints = Maps.newMap();
+
+    /**
+     * Taint flows with respect to the current taint config. Each reloading
+     * of the config publishes a new unmodifiable set by replacing this field,
+     * thus the readers on other threads always see a complete set.
+     */
+    private volatile Set<TaintFlow> taintFlows = Set.of();
+
+    /**
+     * If not null, writes each taint flow as soon as it is discovered
+     * during solving, which is given by option "taint-report".
+     * It is closed when solving finishes; the report is then rewritten
+     * by {@link #rewriteReport(Set)} each time the taint config is reloaded.
+     */
+    private TaintFlowReporter reporter;
+
+    /**
+     * Sink arguments of the sink calls on the call edges discovered so far,
+     * only used when {@link #reporter} is not null. The keys are checked
+     * without the lock, same as {@link #transferEdges}.
+     */
+    private final MultiMap<CSVar, SinkArg> sinkArgs =
+            Maps.newMultiMap(Maps.newConcurrentMap());
+
     public TaintAnalysiss(Solver solver) {
         manager = new TaintManager();
         this.solver = solver;
         csManager = solver.getCSManager();
         emptyContext = solver.getContextSelector().getEmptyContext();
-        config = TaintConfig.readConfig(
+        config = readConfig();
+        sparse = isSparse(solver.getOptions());
+        Object report = solver.getOptions().get("taint-report");
+        if (report != null) {
+            reporter = new TaintFlowReporter((String) report);
+        }
+    }
+
+    /**
+     * @return true if the taint analysis with given options propagates
+     * taint objects on the taint flow graph. This is the case for
+     * option "taint-sparse", and also for option "taint-watch",
+     * as the taint objects need to be removed when the config changes.
+     */
+    public static boolean isSparse(AnalysisOptions options) {
+        return options.getBooleanOrDefault("taint-sparse", false)
+                || options.getBooleanOrDefault("taint-watch", false);
+    }
+
+    private TaintConfig readConfig() {
+        TaintConfig config = TaintConfig.readConfig(
                 solver.getOptions().getString("taint-config"),
                 World.get().getClassHierarchy(),
                 World.get().getTypeSystem());
         logger.info(config);
+        return config;
+    }
+
+    /**
+     * Computes the part of the program which may affect the taint flows
+     * to the sinks, so that the solver can process only that part.
+     */
+    public DemandSlice computeDemandSlice() {
+        DemandSlice slice = new DemandSlice(config);
+        logger.info("Demand-driven taint analysis: {} sink call sites," +
+                        " {} out of {} methods and {} variables are relevant",
+                slice.getNumberOfSinkCallSites(), slice.getNumberOfMethods(),
+                slice.getNumberOfReachableMethods(), slice.getNumberOfVars());
+        return slice;
+    }
+
+    /**
+     * Handles the sources and taint transfers of the callee of given
+     * new call edge: generates taint objects for the result of the source
+     * call, and adds taint transfer edges between the variables of the call.
+     */
+    public synchronized void onNewCallEdge(CSCallSite csCallSite, CSMethod csCallee) {
+        JMethod callee = csCallee.getMethod();
+        processCallEdge(csCallSite, config.getSourcesOf(callee),
+                config.getTransfersOf(callee));
+        if (reporter != null) {
+            Invoke callSite = csCallSite.getCallSite();
+            for (Sink sink : config.getSinksOf(callee)) {
+                CSVar csArg = csManager.getCSVar(csCallSite.getContext(),
+                        callSite.getInvokeExp().getArg(sink.index()));
+                SinkArg sinkArg = new SinkArg(callSite, sink.index());
+                if (sinkArgs.put(csArg, sinkArg)) {
+                    if (sparse) {
+                        PointsToSet pts = taints.get(csArg);
+                        if (pts != null) {
+                            reportTaintFlows(pts, sinkArg);
+                        }
+                    } else {
+                        PointsToSet pts = csArg.getPointsToSet();
+                        synchronized (pts) {
+                            reportTaintFlows(pts, sinkArg);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles given sources and taint transfers of the callee
+     * of given call edge.
+     */
+    private void processCallEdge(CSCallSite csCallSite, Set<Source> sources,
+                                 Set<TaintTransfer> transfers) {
+        Invoke callSite = csCallSite.getCallSite();
+        Context context = csCallSite.getContext();
+        Var result = callSite.getResult();
+        if (result != null) {
+            for (Source source : sources) {
+                Obj taint = manager.makeTaint(callSite, source.type());
+                addTaints(csManager.getCSVar(context, result),
+                        PointsToSetFactory.make(
+                                csManager.getCSObj(emptyContext, taint)));
+            }
+        }
+        for (TaintTransfer transfer : transfers) {
+            Var from = getVar(callSite, transfer.from());
+            Var to = getVar(callSite, transfer.to());
+            if (from != null && to != null) {
+                CSVar csFrom = csManager.getCSVar(context, from);
+                TransferEdge edge = new TransferEdge(
+                        csManager.getCSVar(context, to), transfer.type());
+                if (transferEdges.put(csFrom, edge)) {
+                    if (sparse) {
+                        PointsToSet pts = taints.get(csFrom);
+                        if (pts != null) {
+                            addTaints(edge.target(), transferTaints(pts, edge));
+                        }
+                    } else {
+                        PointsToSet pts = csFrom.getPointsToSet();
+                        // the points-to set may be modified by other threads
+                        // when the solver runs in parallel
+                        synchronized (pts) {
+                            addTaints(edge.target(), transferTaints(pts, edge));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transfers the taint objects in the new points-to set of given variable
+     * along its taint transfer edges.
+     */
+    public void onNewPointsToSet(CSVar csVar, PointsToSet delta) {
+        // most variables have neither transfer edges nor sink uses.
+        // An edge or a sink use added after this check is handled by
+        // its adder, which reads the whole points-to set of the variable.
+        if (!sparse && (transferEdges.containsKey(csVar) ||
+                sinkArgs.containsKey(csVar))) {
+            synchronized (this) {
+                for (TransferEdge edge : transferEdges.get(csVar)) {
+                    addTaints(edge.target(), transferTaints(delta, edge));
+                }
+                reportTaintFlows(csVar, delta);
+            }
+        }
+    }
+
+    /**
+     * Reports the taint flows from the new taint objects of given
+     * variable to the sink calls which use the variable as sink argument.
+     */
+    private void reportTaintFlows(CSVar csVar, PointsToSet delta) {
+        if (reporter != null) {
+            for (SinkArg sinkArg : sinkArgs.get(csVar)) {
+                reportTaintFlows(delta, sinkArg);
+            }
+        }
+    }
+
+    private void reportTaintFlows(PointsToSet pts, SinkArg sinkArg) {
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj)) {
+                reporter.report(new TaintFlow(manager.getSourceCall(obj),
+                        sinkArg.sinkCall(), sinkArg.index()));
+            }
+        }
+    }
+
+    /**
+     * Propagates the taint objects of the source of given new PFG edge
+     * to its target in sparse mode.
+     */
+    public void onNewPFGEdge(Pointer source, Pointer target) {
+        if (sparse) {
+            propagateOnNewEdge(source, target);
+        }
+    }
+
+    private synchronized void propagateOnNewEdge(Pointer source, Pointer target) {
+        PointsToSet pts = taints.get(source);
+        if (pts != null) {
+            // copies the taints as the set of source may be
+            // modified during the propagation
+            PointsToSet copy = PointsToSetFactory.make();
+            copy.addAll(pts);
+            propagateTaints(target, copy);
+        }
+    }
+
+    /**
+     * @return the taint objects in given points-to set, which are
+     * transferred along given edge.
+     */
+    private PointsToSet transferTaints(PointsToSet pts, TransferEdge edge) {
+        PointsToSet result = PointsToSetFactory.make();
+        for (CSObj csObj : pts) {
+            Obj obj = csObj.getObject();
+            if (manager.isTaint(obj)) {
+                Obj taint = manager.makeTaint(
+                        manager.getSourceCall(obj), edge.type());
+                result.addObject(csManager.getCSObj(emptyContext, taint));
+            }
+        }
+        return result;
     }
 
-    // TODO - finish me
+    /**
+     * Adds given taint objects to given pointer, either via the solver,
+     * or on the taint flow graph in sparse mode.
+     */
+    private void addTaints(Pointer pointer, PointsToSet pts) {
+        if (!pts.isEmpty()) {
+            if (sparse) {
+                propagateTaints(pointer, pts);
+            } else {
+                solver.addPointsTo(pointer, pts);
+            }
+        }
+    }
+
+    /**
+     * Propagates given taint objects from given pointer along
+     * the edges of the taint flow graph in sparse mode.
+     */
+    private void propagateTaints(Pointer pointer, PointsToSet pts) {
+        Queue<Pointer> pointers = new ArrayDeque<>();
+        Queue<PointsToSet> deltas = new ArrayDeque<>();
+        pointers.add(pointer);
+        deltas.add(pts);
+        while (!pointers.isEmpty()) {
+            Pointer p = pointers.poll();
+            PointsToSet delta = taints.computeIfAbsent(p,
+                    unused -> PointsToSetFactory.make())
+                    .addAllDiff(deltas.poll());
+            if (delta.isEmpty()) {
+                continue;
+            }
+            for (Pointer succ : solver.getSuccsOf(p)) {
+                pointers.add(succ);
+                deltas.add(delta);
+            }
+            if (p instanceof CSVar csVar) {
+                reportTaintFlows(csVar, delta);
+                for (TransferEdge edge : transferEdges.get(csVar)) {
+                    PointsToSet transferred = transferTaints(delta, edge);
+                    if (!transferred.isEmpty()) {
+                        pointers.add(edge.target());
+                        deltas.add(transferred);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the taint objects pointed to by given variable
+     * in the context of given call site.
+     */
+    private Set<Obj> getTaints(CSCallSite csCallSite, Var var) {
+        CSVar csVar = csManager.getCSVar(csCallSite.getContext(), var);
+        PointsToSet pts = sparse ? taints.get(csVar) : csVar.getPointsToSet();
+        Set<Obj> result = Sets.newHybridSet();
+        if (pts != null) {
+            pts.forEach(csObj -> result.add(csObj.getObject()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the variable of given call site at given index,
+     * which follows the convention of {@link TaintTransfer},
+     * or null if the call site does not have such variable.
+     */
+    private static Var getVar(Invoke callSite, int index) {
+        InvokeExp invokeExp = callSite.getInvokeExp();
+        return switch (index) {
+            case TaintTransfer.BASE -> invokeExp instanceof InvokeInstanceExp instanceExp
+                    ? instanceExp.getBase() : null;
+            case TaintTransfer.RESULT -> callSite.getResult();
+            default -> invokeExp.getArg(index);
+        };
+    }
 
     public void onFinish() {
-        Set<TaintFlow> taintFlows = collectTaintFlows();
+        if (reporter != null) {
+            reporter.close();
+            logger.info("{} taint flows are reported during solving",
+                    reporter.getNumberOfReportedFlows());
+            reporter = null;
+            sinkArgs.clear();
+        }
+        taintFlows = Collections.unmodifiableSet(collectTaintFlows());
         solver.getResult().storeResult(getClass().getName(), taintFlows);
     }
 
+    /**
+     * @return the taint flows with respect to the current taint config.
+     * Different from the flows stored in the pointer analysis result when
+     * solving finishes, the returned flows are updated by each reloading
+     * of the taint config.
+     */
+    public Set<TaintFlow> getTaintFlows() {
+        return taintFlows;
+    }
+
+    /**
+     * @return a watcher which runs {@link #watchConfig()} on a daemon thread.
+     */
+    public TaintConfigWatcher newConfigWatcher() {
+        return new TaintConfigWatcher(this);
+    }
+
+    /**
+     * Watches the taint config file, and each time the file is modified,
+     * re-analyzes the taint flows with the solved pointer analysis state
+     * (see {@link #reloadConfig()}), until the current thread is interrupted.
+     * This method blocks, thus it is run by a {@link TaintConfigWatcher}
+     * after solving.
+     */
+    public void watchConfig() {
+        Path path = Path.of(solver.getOptions().getString("taint-config"))
+                .toAbsolutePath();
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            path.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            logger.info("Watching taint config {}", path);
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = key.pollEvents()
+                        .stream()
+                        .anyMatch(event -> path.getFileName().equals(event.context()));
+                key.reset();
+                if (changed) {
+                    try {
+                        reloadConfig();
+                    } catch (ConfigException e) {
+                        // the file may be incomplete while being saved,
+                        // thus keeps the current config until next change
+                        logger.warn("Failed to reload taint config: {}", e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to watch taint config " + path, e);
+        }
+    }
+
+    /**
+     * Re-reads the taint config, and updates the taint objects and taint
+     * flows with respect to the changes of the config, reusing the solved
+     * pointer analysis state (which is free of taint objects in sparse mode).
+     * <p>
+     * Added sources and taint transfers are handled incrementally on
+     * the call edges to their methods, and new taint objects are propagated
+     * on the taint flow graph. As taint objects cannot be retracted,
+     * removing any source or taint transfer makes the taint objects
+     * re-propagated from scratch on the taint flow graph, which is still
+     * much cheaper than solving pointer analysis again.
+     * Changes of sinks only need the taint flows to be re-collected.
+     * <p>
+     * The re-collected taint flows are published by {@link #getTaintFlows()}
+     * and the report, while the result of the pointer analysis, which may be
+     * read by the following analyses, is left unchanged.
+     */
+    public synchronized void reloadConfig() {
+        if (!sparse) {
+            throw new AnalysisException(
+                    "Reloading taint config requires sparse taint propagation");
+        }
+        TaintConfig oldConfig = config;
+        TaintConfig newConfig = readConfig();
+        config = newConfig;
+        Stream<Edge<CSCallSite, CSMethod>> edges =
+                solver.getResult().getCSCallGraph().edges();
+        if (newConfig.getSources().containsAll(oldConfig.getSources())
+                && newConfig.getTransfers().containsAll(oldConfig.getTransfers())) {
+            MultiMap<JMethod, Source> addedSources = Maps.newMultiMap();
+            newConfig.getSources().stream()
+                    .filter(source -> !oldConfig.getSources().contains(source))
+                    .forEach(source -> addedSources.put(source.method(), source));
+            MultiMap<JMethod, TaintTransfer> addedTransfers = Maps.newMultiMap();
+            newConfig.getTransfers().stream()
+                    .filter(transfer -> !oldConfig.getTransfers().contains(transfer))
+                    .forEach(transfer -> addedTransfers.put(transfer.method(), transfer));
+            if (!addedSources.isEmpty() || !addedTransfers.isEmpty()) {
+                edges.forEach(edge -> {
+                    JMethod callee = edge.getCallee().getMethod();
+                    processCallEdge(edge.getCallSite(),
+                            addedSources.get(callee), addedTransfers.get(callee));
+                });
+            }
+        } else {
+            taints.clear();
+            transferEdges.clear();
+            edges.forEach(edge -> onNewCallEdge(edge.getCallSite(), edge.getCallee()));
+        }
+        Set<TaintFlow> oldFlows = taintFlows;
+        Set<TaintFlow> newFlows = Collections.unmodifiableSet(collectTaintFlows());
+        taintFlows = newFlows;
+        logger.info("Taint config changed: {} taint flows", newFlows.size());
+        newFlows.stream()
+                .filter(flow -> !oldFlows.contains(flow))
+                .forEach(flow -> logger.info("+ {}", flow));
+        oldFlows.stream()
+                .filter(flow -> !newFlows.contains(flow))
+                .forEach(flow -> logger.info("- {}", flow));
+        rewriteReport(newFlows);
+    }
+
+    /**
+     * Rewrites the file given by option "taint-report" with the taint flows
+     * collected after reloading the taint config. All flows are written
+     * again, as the taint objects of the unchanged sources are not
+     * re-propagated, and the flows of the removed ones must be dropped.
+     */
+    private void rewriteReport(Set<TaintFlow> flows) {
+        Object report = solver.getOptions().get("taint-report");
+        if (report != null) {
+            TaintFlowReporter newReporter = new TaintFlowReporter((String) report);
+            flows.forEach(newReporter::report);
+            newReporter.close();
+        }
+    }
+
     private Set<TaintFlow> collectTaintFlows() {
         Set<TaintFlow> taintFlows = new TreeSet<>();
         PointerAnalysisResult result = solver.getResult();
-        // TODO - finish me
-        // You could query pointer analysis results you need via variable result.
+        result.getCSCallGraph().edges().forEach(edge -> {
+            Invoke sinkCall = edge.getCallSite().getCallSite();
+            for (Sink sink : config.getSinksOf(edge.getCallee().getMethod())) {
+                Var arg = sinkCall.getInvokeExp().getArg(sink.index());
+                for (Obj obj : getTaints(edge.getCallSite(), arg)) {
+                    if (manager.isTaint(obj)) {
+                        taintFlows.add(new TaintFlow(
+                                manager.getSourceCall(obj), sinkCall, sink.index()));
+                    }
+                }
+            }
+        });
         return taintFlows;
     }
+
+    /**
+     * Taint transfer edge to target variable, which transfers
+     * the taint objects of the source variable as given type.
+     */
+    private record TransferEdge(CSVar target, Type type) {
+    }
+
+    /**
+     * Argument at given index of a sink call.
+     */
+    private record SinkArg(Invoke sinkCall, int index) {
+    }
 }
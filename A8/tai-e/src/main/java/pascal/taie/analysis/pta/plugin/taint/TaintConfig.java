@@ -38,6 +38,8 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 
 import java.io.File;
@@ -67,11 +69,24 @@ class TaintConfig {
      */
     private final Set<TaintTransfer> transfers;
 
+    // indexes of the sources, sinks and taint transfers by their methods,
+    // which are built when the config is loaded, so that checking whether
+    // a callee is a source/sink/transfer method is a single map lookup
+
+    private final MultiMap<JMethod, Source> sourcesOf = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, Sink> sinksOf = Maps.newMultiMap();
+
+    private final MultiMap<JMethod, TaintTransfer> transfersOf = Maps.newMultiMap();
+
     private TaintConfig(Set<Source> sources, Set<Sink> sinks,
                         Set<TaintTransfer> transfers) {
         this.sources = sources;
         this.sinks = sinks;
         this.transfers = transfers;
+        sources.forEach(source -> sourcesOf.put(source.method(), source));
+        sinks.forEach(sink -> sinksOf.put(sink.method(), sink));
+        transfers.forEach(transfer -> transfersOf.put(transfer.method(), transfer));
     }
 
     /**
@@ -119,6 +134,27 @@ class TaintConfig {
         return transfers;
     }
 
+    /**
+     * @return sources whose method is given method.
+     */
+    Set<Source> getSourcesOf(JMethod method) {
+        return sourcesOf.get(method);
+    }
+
+    /**
+     * @return sinks whose method is given method.
+     */
+    Set<Sink> getSinksOf(JMethod method) {
+        return sinksOf.get(method);
+    }
+
+    /**
+     * @return taint transfers whose method is given method.
+     */
+    Set<TaintTransfer> getTransfersOf(JMethod method) {
+        return transfersOf.get(method);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("TaintConfig:");
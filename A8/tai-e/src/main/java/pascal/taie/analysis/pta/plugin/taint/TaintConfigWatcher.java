@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import java.util.Set;
+
+/**
+ * Handle of the daemon thread which re-analyzes taint flows each time
+ * the taint config is modified (see {@link TaintAnalysiss#watchConfig()}).
+ * <p>
+ * As a daemon, the thread does not keep the JVM alive, i.e., it stops
+ * when the analysis pipeline ends, unless the embedding application
+ * keeps running; in that case, it can be stopped by {@link #stop()}.
+ */
+public class TaintConfigWatcher {
+
+    private final TaintAnalysiss taintAnalysis;
+
+    private final Thread thread;
+
+    TaintConfigWatcher(TaintAnalysiss taintAnalysis) {
+        this.taintAnalysis = taintAnalysis;
+        thread = new Thread(taintAnalysis::watchConfig, "taint-config-watcher");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching the taint config, and waits until the reloading
+     * in progress (if any) finishes.
+     */
+    public void stop() throws InterruptedException {
+        thread.interrupt();
+        thread.join();
+    }
+
+    public boolean isWatching() {
+        return thread.isAlive();
+    }
+
+    /**
+     * @return the taint flows with respect to the latest taint config.
+     */
+    public Set<TaintFlow> getTaintFlows() {
+        return taintAnalysis.getTaintFlows();
+    }
+}
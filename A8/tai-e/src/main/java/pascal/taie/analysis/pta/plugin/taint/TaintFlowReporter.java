@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin.taint;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes each taint flow to a file as soon as it is discovered,
+ * so that the findings are available while the analysis is running.
+ * <p>
+ * If the path of the file ends with ".sarif", the taint flows are written
+ * as the results of a SARIF 2.1.0 log, which is completed when this
+ * reporter is closed; otherwise, each taint flow is written as a JSON
+ * object in one line. The file is flushed after each taint flow.
+ * <p>
+ * Reported taint flows are deduplicated by a set of longs, each of which
+ * packs the id of the source call and the id of the sink argument
+ * (i.e., the sink call and the index) of a flow, instead of keeping
+ * the {@link TaintFlow} objects.
+ */
+class TaintFlowReporter {
+
+    private static final String RULE_ID = "taint-flow";
+
+    private final File file;
+
+    private final boolean sarif;
+
+    private final JsonGenerator generator;
+
+    /**
+     * Ids of the source calls, starting from 1.
+     */
+    private final Map<Invoke, Integer> sourceIds = Maps.newMap();
+
+    /**
+     * Ids of the sink arguments, starting from 1.
+     */
+    private final Map<SinkArg, Integer> sinkIds = Maps.newMap();
+
+    private final LongSet reported = new LongSet();
+
+    TaintFlowReporter(String path) {
+        file = new File(path);
+        sarif = path.endsWith(".sarif");
+        try {
+            generator = new JsonFactory().createGenerator(file, JsonEncoding.UTF8);
+            if (sarif) {
+                generator.writeStartObject();
+                generator.writeStringField("version", "2.1.0");
+                generator.writeStringField("$schema",
+                        "https://json.schemastore.org/sarif-2.1.0.json");
+                generator.writeArrayFieldStart("runs");
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("tool");
+                generator.writeObjectFieldStart("driver");
+                generator.writeStringField("name", "Tai-e");
+                generator.writeArrayFieldStart("rules");
+                generator.writeStartObject();
+                generator.writeStringField("id", RULE_ID);
+                generator.writeObjectFieldStart("shortDescription");
+                generator.writeStringField("text", "Taint flow from source to sink");
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndArray(); // rules
+                generator.writeEndObject(); // driver
+                generator.writeEndObject(); // tool
+                generator.writeArrayFieldStart("results");
+                generator.flush();
+            } else {
+                generator.setRootValueSeparator(new SerializedString(""));
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to create taint flow report " + file, e);
+        }
+    }
+
+    /**
+     * Writes given taint flow if it has not been reported.
+     */
+    void report(TaintFlow flow) {
+        int sourceId = sourceIds.computeIfAbsent(flow.sourceCall(),
+                unused -> sourceIds.size() + 1);
+        int sinkId = sinkIds.computeIfAbsent(
+                new SinkArg(flow.sinkCall(), flow.index()),
+                unused -> sinkIds.size() + 1);
+        // both ids are positive ints, thus each takes 32 bits of the key
+        long key = ((long) sourceId << 32) | sinkId;
+        if (!reported.add(key)) {
+            return;
+        }
+        try {
+            if (sarif) {
+                writeSARIFResult(flow);
+            } else {
+                generator.writeStartObject();
+                writeCall("source", flow.sourceCall());
+                writeCall("sink", flow.sinkCall());
+                generator.writeNumberField("index", flow.index());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to write taint flow report " + file, e);
+        }
+    }
+
+    private void writeCall(String name, Invoke call) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeStringField("call", CallGraphs.toString(call));
+        generator.writeStringField("method", call.getContainer().toString());
+        generator.writeNumberField("line", call.getLineNumber());
+        generator.writeEndObject();
+    }
+
+    private void writeSARIFResult(TaintFlow flow) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("ruleId", RULE_ID);
+        generator.writeStringField("level", "error");
+        generator.writeObjectFieldStart("message");
+        generator.writeStringField("text", flow.toString());
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("locations");
+        writeSARIFLocation(flow.sinkCall(), "sink");
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("relatedLocations");
+        writeSARIFLocation(flow.sourceCall(), "source");
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("properties");
+        generator.writeNumberField("index", flow.index());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the location of given call. The source files of the calls
+     * are unknown, thus the location is given by the containing method,
+     * and the line number is kept in the properties.
+     */
+    private void writeSARIFLocation(Invoke call, String role) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("logicalLocations");
+        generator.writeStartObject();
+        generator.writeStringField("fullyQualifiedName",
+                call.getContainer().toString());
+        generator.writeStringField("kind", "function");
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("message");
+        generator.writeStringField("text", role + ": " + CallGraphs.toString(call));
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("properties");
+        generator.writeNumberField("line", call.getLineNumber());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * @return the number of reported taint flows.
+     */
+    int getNumberOfReportedFlows() {
+        return reported.size();
+    }
+
+    /**
+     * Completes and closes the report file.
+     */
+    void close() {
+        try {
+            if (sarif) {
+                generator.writeEndArray(); // results
+                generator.writeEndObject(); // run
+                generator.writeEndArray(); // runs
+                generator.writeEndObject();
+            }
+            generator.close();
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to close taint flow report " + file, e);
+        }
+    }
+
+    /**
+     * Open-addressing hash set of non-zero longs.
+     */
+    private static class LongSet {
+
+        private long[] table = new long[16];
+
+        private int size;
+
+        /**
+         * @return true if given key was not in this set.
+         */
+        private boolean add(long key) {
+            int mask = table.length - 1;
+            int i = hash(key) & mask;
+            while (table[i] != 0) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            if (++size * 2 > table.length) {
+                resize();
+            }
+            return true;
+        }
+
+        private void resize() {
+            long[] oldTable = table;
+            table = new long[oldTable.length * 2];
+            int mask = table.length - 1;
+            for (long key : oldTable) {
+                if (key != 0) {
+                    int i = hash(key) & mask;
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = key;
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    private record SinkArg(Invoke sinkCall, int index) {
+    }
+}
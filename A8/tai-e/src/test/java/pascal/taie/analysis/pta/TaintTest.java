@@ -22,8 +22,17 @@
 
 package pascal.taie.analysis.pta;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
+import pascal.taie.analysis.pta.plugin.taint.TaintConfigWatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class TaintTest {
 
@@ -70,4 +79,65 @@ public class TaintTest {
         Tests.testCSPTA(DIR, "TaintInList",
                 "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
     }
+
+    @Test
+    public void testParallelTaint() {
+        Tests.testCSPTA(DIR, "SimpleTaint", "threads:4",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "InterTaintTransfer", "threads:4",
+                "cs:2-call;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "TaintInList", "threads:4",
+                "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testDemandTaint() {
+        Tests.testCSPTA(DIR, "ArgToResult", "taint-demand:true",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "StringAppend", "taint-demand:true",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "TaintInList", "taint-demand:true",
+                "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testSparseTaint() {
+        Tests.testCSPTA(DIR, "BaseToResult", "taint-sparse:true",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "StringAppend", "taint-sparse:true",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "OneCallTaint", "taint-sparse:true",
+                "cs:1-call;taint-config:src/test/resources/pta/taint/taint-config.yml");
+        Tests.testCSPTA(DIR, "TaintInList", "taint-sparse:true",
+                "cs:2-obj;taint-config:src/test/resources/pta/taint/taint-config.yml");
+    }
+
+    @Test
+    public void testTaintReport() throws IOException {
+        Path report = Files.createTempFile("SimpleTaint", ".json");
+        try {
+            Tests.testCSPTA(DIR, "SimpleTaint", "taint-report:" + report,
+                    "taint-config:src/test/resources/pta/taint/taint-config.yml");
+            Assert.assertEquals(4, Files.readAllLines(report).size());
+            Tests.testCSPTA(DIR, "SimpleTaint", "taint-sparse:true",
+                    "taint-report:" + report,
+                    "taint-config:src/test/resources/pta/taint/taint-config.yml");
+            Assert.assertEquals(4, Files.readAllLines(report).size());
+        } finally {
+            Files.delete(report);
+        }
+    }
+
+    @Test
+    public void testTaintWatch() throws InterruptedException {
+        Tests.testCSPTA(DIR, "SimpleTaint", "taint-watch:true",
+                "taint-config:src/test/resources/pta/taint/taint-config.yml");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        TaintConfigWatcher watcher = result.getResult(
+                TaintConfigWatcher.class.getName());
+        Assert.assertEquals(result.getResult(TaintAnalysiss.class.getName()),
+                watcher.getTaintFlows());
+        watcher.stop();
+        Assert.assertFalse(watcher.isWatching());
+    }
 }